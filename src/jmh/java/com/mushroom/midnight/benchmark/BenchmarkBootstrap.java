@@ -0,0 +1,59 @@
+package com.mushroom.midnight.benchmark;
+
+import com.mushroom.midnight.common.biome.BiomeLayerType;
+import com.mushroom.midnight.common.biome.BiomeLayers;
+import com.mushroom.midnight.common.biome.BiomeProcedure;
+import com.mushroom.midnight.common.biome.cavern.CavernousBiome;
+import net.minecraft.util.registry.Bootstrap;
+import net.minecraft.world.gen.IExtendedNoiseRandom;
+import net.minecraft.world.gen.area.IArea;
+import net.minecraft.world.gen.area.IAreaFactory;
+import net.minecraft.world.gen.layer.traits.IAreaTransformer0;
+import net.minecraft.world.gen.surfacebuilders.SurfaceBuilder;
+
+import java.util.function.LongFunction;
+
+/**
+ * Shared setup for the worldgen benchmarks. Benchmarks run against the vanilla bootstrap only, so anything that
+ * would normally resolve through the Midnight registries is substituted with a fixed, vanilla-backed equivalent.
+ */
+public final class BenchmarkBootstrap {
+    public static final long SEED = 8555034668646880878L;
+
+    private static boolean initialized;
+
+    private BenchmarkBootstrap() {
+    }
+
+    public static synchronized void init() {
+        if (!initialized) {
+            Bootstrap.register();
+            initialized = true;
+        }
+    }
+
+    public static BiomeLayers<CavernousBiome> constantCavernLayers(long seed) {
+        CavernousBiome biome = new BenchmarkCavernBiome();
+        BiomeLayerType<CavernousBiome> type = BiomeLayerType.create(CavernousBiome.class, new BiomeLayerType.ProcedureFactory() {
+            @Override
+            public <A extends IArea, C extends IExtendedNoiseRandom<A>> BiomeProcedure<A> create(LongFunction<C> contextFactory) {
+                IAreaFactory<A> layer = ((IAreaTransformer0) (random, x, y) -> 0).apply(contextFactory.apply(0));
+                return BiomeProcedure.of(layer, contextFactory);
+            }
+        }, id -> biome, biome);
+
+        return type.make(seed);
+    }
+
+    private static class BenchmarkCavernBiome extends CavernousBiome {
+        BenchmarkCavernBiome() {
+            super(new Properties() {}
+                    .surfaceBuilder(SurfaceBuilder.NOPE, SurfaceBuilder.STONE_STONE_GRAVEL_CONFIG)
+                    .cavernDensity(-5.0F)
+                    .floorHeight(0.1F)
+                    .ceilingHeight(0.9F)
+                    .heightScale(0.2F)
+            );
+        }
+    }
+}
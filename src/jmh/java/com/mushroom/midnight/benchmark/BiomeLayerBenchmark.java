@@ -0,0 +1,73 @@
+package com.mushroom.midnight.benchmark;
+
+import com.mushroom.midnight.common.biome.BiomeLayerType;
+import com.mushroom.midnight.common.biome.BiomeLayers;
+import net.minecraft.world.biome.Biome;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BiomeLayerBenchmark {
+    private BiomeLayers<Biome> layers;
+    private int chunkX;
+    private int[] tile;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkBootstrap.init();
+        this.layers = BiomeLayerType.SURFACE.make(BenchmarkBootstrap.SEED);
+    }
+
+    @Setup(Level.Invocation)
+    public void advance() {
+        // move to a fresh chunk every invocation so we measure cold sampling rather than the layer caches
+        this.chunkX += 16;
+    }
+
+    @Benchmark
+    public void noiseChunk(Blackhole blackhole) {
+        int originX = this.chunkX >> 2;
+        for (int z = 0; z < 5; z++) {
+            for (int x = 0; x < 5; x++) {
+                blackhole.consume(this.layers.noise.sample(originX + x, z));
+            }
+        }
+    }
+
+    @Benchmark
+    public void blockChunk(Blackhole blackhole) {
+        for (int z = 0; z < 16; z++) {
+            for (int x = 0; x < 16; x++) {
+                blackhole.consume(this.layers.block.sample(this.chunkX + x, z));
+            }
+        }
+    }
+
+    @Benchmark
+    public Biome[] blockRegion() {
+        return this.layers.block.sample(this.chunkX, 0, 16, 16);
+    }
+
+    @Benchmark
+    public int[] mapTile() {
+        this.tile = this.layers.noise.sampleValues(this.chunkX << 5, 0, 512, 512, this.tile);
+        return this.tile;
+    }
+}
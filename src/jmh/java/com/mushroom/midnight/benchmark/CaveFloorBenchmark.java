@@ -0,0 +1,129 @@
+package com.mushroom.midnight.benchmark;
+
+import com.mushroom.midnight.common.biome.BiomeLayerType;
+import com.mushroom.midnight.common.biome.BiomeLayers;
+import com.mushroom.midnight.common.biome.cavern.CavernousBiome;
+import com.mushroom.midnight.common.world.MidnightNoiseGenerator;
+import com.mushroom.midnight.common.world.util.CaveFloorMap;
+import com.mushroom.midnight.common.world.util.NoiseChunkPrimer;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.biome.Biome;
+import net.minecraft.world.chunk.ChunkPrimer;
+import net.minecraft.world.chunk.UpgradeData;
+import net.minecraft.world.gen.Heightmap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static com.mushroom.midnight.common.world.MidnightChunkGenerator.*;
+import static com.mushroom.midnight.common.world.MidnightNoiseGenerator.*;
+
+/**
+ * Compares finding cave floors for underground feature placement through {@link CaveFloorMap} against the plain
+ * per-block scan it replaces, for a chunk decoration issuing the given number of floor queries on random columns.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CaveFloorBenchmark {
+    // same range as UndergroundPlacementLevel
+    private static final int MIN_Y = 5;
+
+    private static final int CHUNK_COUNT = 16;
+
+    private static final Predicate<BlockState> PREDICATE = Heightmap.Type.MOTION_BLOCKING.getHeightLimitPredicate();
+
+    @Param({ "16", "64", "256" })
+    private int queries;
+
+    private final ChunkPrimer[] chunks = new ChunkPrimer[CHUNK_COUNT];
+    private int[] columns;
+
+    private int chunkIndex;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkBootstrap.init();
+
+        MidnightNoiseGenerator noiseGenerator = new MidnightNoiseGenerator(new Random(BenchmarkBootstrap.SEED));
+        NoiseChunkPrimer noisePrimer = new NoiseChunkPrimer(HORIZONTAL_GRANULARITY, VERTICAL_GRANULARITY, NOISE_WIDTH, NOISE_HEIGHT);
+        NoiseChunkPrimer.DensityStates densityStates = new NoiseChunkPrimer.DensityStates(Blocks.STONE.getDefaultState(), Blocks.WATER.getDefaultState(), SURFACE_CAVE_BOUNDARY, SEA_LEVEL);
+
+        BiomeLayers<Biome> surfaceLayers = BiomeLayerType.SURFACE.make(BenchmarkBootstrap.SEED);
+        BiomeLayers<CavernousBiome> undergroundLayers = BenchmarkBootstrap.constantCavernLayers(BenchmarkBootstrap.SEED);
+
+        for (int i = 0; i < CHUNK_COUNT; i++) {
+            ChunkPos pos = new ChunkPos(i, 0);
+            ChunkPrimer chunk = new ChunkPrimer(pos, UpgradeData.EMPTY);
+            noisePrimer.primeChunk(chunk, noiseGenerator.sampleChunkNoise(pos, surfaceLayers, undergroundLayers), densityStates);
+            this.chunks[i] = chunk;
+        }
+
+        Random random = new Random(BenchmarkBootstrap.SEED);
+        this.columns = new int[this.queries];
+        for (int i = 0; i < this.queries; i++) {
+            this.columns[i] = random.nextInt(256);
+        }
+    }
+
+    @Benchmark
+    public void scanColumns(Blackhole blackhole) {
+        ChunkPrimer chunk = this.nextChunk();
+
+        BlockPos.Mutable pos = new BlockPos.Mutable();
+        for (int column : this.columns) {
+            blackhole.consume(scanFloor(chunk, pos, column & 15, column >> 4));
+        }
+    }
+
+    @Benchmark
+    public void floorMap(Blackhole blackhole) {
+        ChunkPrimer chunk = this.nextChunk();
+        ChunkPos chunkPos = chunk.getPos();
+
+        CaveFloorMap.begin(chunkPos.x, chunkPos.z);
+        try {
+            CaveFloorMap floors = CaveFloorMap.get(chunk);
+            for (int column : this.columns) {
+                blackhole.consume(floors.getFloor(chunk, column & 15, column >> 4, MIN_Y, SURFACE_CAVE_BOUNDARY, PREDICATE));
+            }
+        } finally {
+            CaveFloorMap.end();
+        }
+    }
+
+    private ChunkPrimer nextChunk() {
+        this.chunkIndex = (this.chunkIndex + 1) % CHUNK_COUNT;
+        return this.chunks[this.chunkIndex];
+    }
+
+    // same scan as the fallback in UndergroundPlacementLevel.getSurfacePos
+    private static int scanFloor(ChunkPrimer chunk, BlockPos.Mutable pos, int localX, int localZ) {
+        for (int y = MIN_Y; y < SURFACE_CAVE_BOUNDARY; y++) {
+            if (!PREDICATE.test(chunk.getBlockState(pos.setPos(localX, y, localZ)))) {
+                return y;
+            }
+        }
+        return CaveFloorMap.NONE;
+    }
+}
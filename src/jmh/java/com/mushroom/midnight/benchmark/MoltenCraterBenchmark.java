@@ -0,0 +1,133 @@
+package com.mushroom.midnight.benchmark;
+
+import com.mushroom.midnight.common.biome.BiomeLayerType;
+import com.mushroom.midnight.common.biome.BiomeLayers;
+import com.mushroom.midnight.common.biome.cavern.CavernousBiome;
+import com.mushroom.midnight.common.world.MidnightNoiseGenerator;
+import com.mushroom.midnight.common.world.feature.structure.MoltenCraterStructure;
+import com.mushroom.midnight.common.world.util.NoiseChunkPrimer;
+import com.mushroom.midnight.common.world.util.SectionBlockWriter;
+import net.minecraft.block.Blocks;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.MutableBoundingBox;
+import net.minecraft.world.biome.Biome;
+import net.minecraft.world.chunk.ChunkPrimer;
+import net.minecraft.world.chunk.UpgradeData;
+import net.minecraft.world.gen.Heightmap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.mushroom.midnight.common.world.MidnightChunkGenerator.*;
+import static com.mushroom.midnight.common.world.MidnightNoiseGenerator.*;
+
+/**
+ * Measures carving a fixed-seed, full size molten crater into each chunk it covers, one chunk per invocation. The
+ * crater piece is hosted on plain {@link ChunkPrimer}s through a chunk-bound {@link SectionBlockWriter}, since placing
+ * it normally needs a live world. Without the mod loaded the Midnight blocks it writes are air, so hardened edges and
+ * pools cost the same as carved blocks here.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoltenCraterBenchmark {
+    // the largest crater, with its edge, centered in the origin chunk
+    private static final int RADIUS = 42;
+    private static final int CHUNK_RADIUS = 3;
+    private static final int CHUNK_SIZE = CHUNK_RADIUS * 2 + 1;
+
+    private static final int ORIGIN_X = 8;
+    private static final int ORIGIN_Z = 8;
+
+    private NoiseChunkPrimer noisePrimer;
+    private NoiseChunkPrimer.DensityStates densityStates;
+    private final double[][] chunkNoise = new double[CHUNK_SIZE * CHUNK_SIZE][];
+
+    private MoltenCraterStructure.Piece piece;
+    private final SectionBlockWriter writer = new SectionBlockWriter();
+
+    private int chunkIndex;
+    private ChunkPrimer chunk;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkBootstrap.init();
+
+        MidnightNoiseGenerator noiseGenerator = new MidnightNoiseGenerator(new Random(BenchmarkBootstrap.SEED));
+        this.noisePrimer = new NoiseChunkPrimer(HORIZONTAL_GRANULARITY, VERTICAL_GRANULARITY, NOISE_WIDTH, NOISE_HEIGHT);
+        this.densityStates = new NoiseChunkPrimer.DensityStates(Blocks.STONE.getDefaultState(), Blocks.WATER.getDefaultState(), SURFACE_CAVE_BOUNDARY, SEA_LEVEL);
+
+        BiomeLayers<Biome> surfaceLayers = BiomeLayerType.SURFACE.make(BenchmarkBootstrap.SEED);
+        BiomeLayers<CavernousBiome> undergroundLayers = BenchmarkBootstrap.constantCavernLayers(BenchmarkBootstrap.SEED);
+
+        for (int i = 0; i < this.chunkNoise.length; i++) {
+            this.chunkNoise[i] = noiseGenerator.sampleChunkNoise(chunkPos(i), surfaceLayers, undergroundLayers);
+        }
+
+        // same origin height as MoltenCraterStructure.Metadata.generate picks
+        ChunkPrimer originChunk = this.primeChunk(this.chunkNoise.length / 2);
+        int originY = originChunk.getTopBlockY(Heightmap.Type.WORLD_SURFACE_WG, ORIGIN_X, ORIGIN_Z) + 1;
+
+        CompoundNBT compound = new CompoundNBT();
+        compound.putInt("origin_x", ORIGIN_X);
+        compound.putInt("origin_y", originY);
+        compound.putInt("origin_z", ORIGIN_Z);
+        compound.putInt("radius", RADIUS);
+        this.piece = new MoltenCraterStructure.Piece(null, compound);
+    }
+
+    @Setup(Level.Invocation)
+    public void prepareChunk() {
+        this.chunkIndex = (this.chunkIndex + 1) % this.chunkNoise.length;
+        this.chunk = this.primeChunk(this.chunkIndex);
+    }
+
+    @Benchmark
+    public ChunkPrimer carveChunk() {
+        ChunkPos chunkPos = this.chunk.getPos();
+        MutableBoundingBox pieceBounds = this.piece.getBoundingBox();
+
+        // same clipping as the piece does against the bounds of the chunk being decorated
+        BlockPos minPos = new BlockPos(
+                Math.max(pieceBounds.minX, chunkPos.getXStart()),
+                Math.max(pieceBounds.minY, 0),
+                Math.max(pieceBounds.minZ, chunkPos.getZStart())
+        );
+        BlockPos maxPos = new BlockPos(
+                Math.min(pieceBounds.maxX, chunkPos.getXEnd()),
+                Math.min(pieceBounds.maxY, 255),
+                Math.min(pieceBounds.maxZ, chunkPos.getZEnd())
+        );
+
+        this.piece.carveCrater(this.writer.begin(this.chunk), minPos, maxPos);
+        this.writer.end();
+
+        return this.chunk;
+    }
+
+    private ChunkPrimer primeChunk(int index) {
+        ChunkPrimer chunk = new ChunkPrimer(chunkPos(index), UpgradeData.EMPTY);
+        this.noisePrimer.primeChunk(chunk, this.chunkNoise[index], this.densityStates);
+        return chunk;
+    }
+
+    private static ChunkPos chunkPos(int index) {
+        return new ChunkPos(index % CHUNK_SIZE - CHUNK_RADIUS, index / CHUNK_SIZE - CHUNK_RADIUS);
+    }
+}
@@ -0,0 +1,103 @@
+package com.mushroom.midnight.benchmark;
+
+import com.mushroom.midnight.common.world.noise.OctaveNoiseSampler;
+import com.mushroom.midnight.common.world.noise.PerlinNoiseSampler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NoiseSamplerBenchmark {
+    private static final int COLUMN_HEIGHT = 65;
+
+    private PerlinNoiseSampler perlin;
+    private OctaveNoiseSampler octave;
+    private OctaveNoiseSampler ridged;
+    private OctaveNoiseSampler ridgedFractional;
+
+    private final double[] column = new double[COLUMN_HEIGHT];
+
+    @Setup
+    public void setup() {
+        Random random = new Random(BenchmarkBootstrap.SEED);
+
+        this.perlin = new PerlinNoiseSampler(random);
+        this.perlin.setFrequency(0.2);
+
+        this.octave = OctaveNoiseSampler.perlin(random, 3);
+        this.octave.setAmplitude(5.0);
+        this.octave.setFrequency(0.1);
+
+        this.ridged = OctaveNoiseSampler.ridged(random, 3, 4.0);
+        this.ridged.setAmplitude(4.0);
+        this.ridged.setFrequency(0.08);
+
+        // a non-integer exponent takes the Math.pow path, as a baseline for the multiplication fast path above
+        this.ridgedFractional = OctaveNoiseSampler.ridged(random, 3, 4.001);
+        this.ridgedFractional.setAmplitude(4.0);
+        this.ridgedFractional.setFrequency(0.08);
+    }
+
+    @Benchmark
+    public void perlin2D(Blackhole blackhole) {
+        for (int z = 0; z < 16; z++) {
+            for (int x = 0; x < 16; x++) {
+                blackhole.consume(this.perlin.get(x, z));
+            }
+        }
+    }
+
+    @Benchmark
+    public void perlin3D(Blackhole blackhole) {
+        for (int y = 0; y < COLUMN_HEIGHT; y++) {
+            blackhole.consume(this.perlin.get(0.0, y, 0.0));
+        }
+    }
+
+    @Benchmark
+    public void octave3D(Blackhole blackhole) {
+        for (int y = 0; y < COLUMN_HEIGHT; y++) {
+            blackhole.consume(this.octave.get(0.0, y, 0.0));
+        }
+    }
+
+    @Benchmark
+    public double[] octaveColumn() {
+        this.octave.getColumn(this.column, 0.0, 0.0, 0, COLUMN_HEIGHT);
+        return this.column;
+    }
+
+    @Benchmark
+    public void ridged2D(Blackhole blackhole) {
+        for (int z = 0; z < 16; z++) {
+            for (int x = 0; x < 16; x++) {
+                blackhole.consume(this.ridged.get(x, z));
+            }
+        }
+    }
+
+    @Benchmark
+    public void ridgedFractional2D(Blackhole blackhole) {
+        for (int z = 0; z < 16; z++) {
+            for (int x = 0; x < 16; x++) {
+                blackhole.consume(this.ridgedFractional.get(x, z));
+            }
+        }
+    }
+}
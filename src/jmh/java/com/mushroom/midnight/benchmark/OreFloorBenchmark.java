@@ -0,0 +1,72 @@
+package com.mushroom.midnight.benchmark;
+
+import com.mushroom.midnight.common.world.util.ChunkFloorHeights;
+import net.minecraft.world.chunk.ChunkPrimer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the two ways {@code MidnightOreFeature} decides whether a vein is attempted: scanning the floor height of
+ * every column the vein covers, and settling it from the lowest floor of each covered chunk through
+ * {@link ChunkFloorHeights} before falling back to the scan. That both give the same answer is checked separately by
+ * {@link OreFloorCheck}, on the same terrain and veins.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OreFloorBenchmark {
+    private final ChunkFloorHeights floorHeights = new ChunkFloorHeights();
+
+    private ChunkPrimer[] chunks;
+    private ChunkFloorHeights.ChunkSource chunkSource;
+    private int[] veins;
+
+    private int veinIndex;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkBootstrap.init();
+
+        this.chunks = OreFloorCheck.generateChunks();
+        this.chunkSource = OreFloorCheck.chunkSource(this.chunks);
+        this.veins = OreFloorCheck.prepareVeins(new Random(BenchmarkBootstrap.SEED));
+    }
+
+    @Benchmark
+    public boolean scanColumns() {
+        int offset = this.nextVein();
+        return OreFloorCheck.scanAccepts(this.chunks, this.veins[offset], this.veins[offset + 1], this.veins[offset + 2], this.veins[offset + 3]);
+    }
+
+    @Benchmark
+    public boolean floorBound() {
+        int offset = this.nextVein();
+        int minX = this.veins[offset];
+        int minY = this.veins[offset + 1];
+        int minZ = this.veins[offset + 2];
+        int sizeXZ = this.veins[offset + 3];
+
+        int floorHeight = this.floorHeights.getMinHeight(this.chunkSource, minX, minZ, minX + sizeXZ, minZ + sizeXZ);
+        return minY <= floorHeight || OreFloorCheck.scanAccepts(this.chunks, minX, minY, minZ, sizeXZ);
+    }
+
+    private int nextVein() {
+        this.veinIndex = (this.veinIndex + 1) % OreFloorCheck.VEIN_COUNT;
+        return this.veinIndex * 4;
+    }
+}
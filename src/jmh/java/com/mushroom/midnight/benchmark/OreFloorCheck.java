@@ -0,0 +1,187 @@
+package com.mushroom.midnight.benchmark;
+
+import com.mushroom.midnight.common.biome.BiomeLayerType;
+import com.mushroom.midnight.common.biome.BiomeLayers;
+import com.mushroom.midnight.common.biome.cavern.CavernousBiome;
+import com.mushroom.midnight.common.world.MidnightNoiseGenerator;
+import com.mushroom.midnight.common.world.util.ChunkFloorHeights;
+import com.mushroom.midnight.common.world.util.NoiseChunkPrimer;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.util.SharedSeedRandom;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.world.biome.Biome;
+import net.minecraft.world.biome.Biomes;
+import net.minecraft.world.chunk.ChunkPrimer;
+import net.minecraft.world.chunk.UpgradeData;
+import net.minecraft.world.gen.GenerationStage;
+import net.minecraft.world.gen.Heightmap;
+import net.minecraft.world.gen.carver.ConfiguredCarver;
+import net.minecraft.world.gen.carver.WorldCarver;
+import net.minecraft.world.gen.feature.ProbabilityConfig;
+
+import java.util.Random;
+
+import static com.mushroom.midnight.common.world.MidnightChunkGenerator.*;
+import static com.mushroom.midnight.common.world.MidnightNoiseGenerator.*;
+
+/**
+ * Checks that the floor bound {@code MidnightOreFeature} takes from {@link ChunkFloorHeights} never lets a vein be
+ * attempted that the column scan would reject. The bound only decides whether {@code tryPlaceVein} runs, with the same
+ * arguments and random state either way, so this is the only way it could change generation. The check runs on cave
+ * carved terrain, and again after floors have been dug out between rounds, and throws on the first mismatch. Run it
+ * with {@code gradlew checkOreFloor}, which is also part of {@code gradlew check}.
+ */
+public final class OreFloorCheck {
+    static final int VEIN_COUNT = 4096;
+
+    private static final int CHECK_ROUNDS = 16;
+    private static final int DIGS_PER_ROUND = 64;
+
+    // sizes and height range of the ores the surface biomes place
+    private static final int[] VEIN_SIZES = new int[] { 4, 6, 14 };
+    private static final int MAX_VEIN_Y = 56;
+
+    private static final BlockState AIR = Blocks.AIR.getDefaultState();
+
+    private OreFloorCheck() {
+    }
+
+    public static void main(String[] args) {
+        BenchmarkBootstrap.init();
+
+        ChunkPrimer[] chunks = generateChunks();
+        ChunkFloorHeights.ChunkSource chunkSource = chunkSource(chunks);
+        ChunkFloorHeights floorHeights = new ChunkFloorHeights();
+
+        Random random = new Random(BenchmarkBootstrap.SEED);
+        int[] veins = prepareVeins(random);
+
+        for (int round = 0; round < CHECK_ROUNDS; round++) {
+            for (int i = 0; i < VEIN_COUNT; i++) {
+                int offset = i * 4;
+                int minX = veins[offset];
+                int minY = veins[offset + 1];
+                int minZ = veins[offset + 2];
+                int sizeXZ = veins[offset + 3];
+
+                int floorHeight = floorHeights.getMinHeight(chunkSource, minX, minZ, minX + sizeXZ, minZ + sizeXZ);
+                if (floorHeight == ChunkFloorHeights.UNKNOWN) {
+                    throw new IllegalStateException("Floor bound unavailable for the vein at [" + minX + ", " + minY + ", " + minZ + "]");
+                }
+                if (minY <= floorHeight && !scanAccepts(chunks, minX, minY, minZ, sizeXZ)) {
+                    throw new IllegalStateException("Floor bound accepted a vein the column scan rejects at [" + minX + ", " + minY + ", " + minZ + "] in round " + round);
+                }
+            }
+
+            // lower some floors, so later rounds see chunks that changed after their heights were first taken
+            for (int i = 0; i < DIGS_PER_ROUND; i++) {
+                digColumn(chunks, random);
+            }
+        }
+    }
+
+    /**
+     * Generates the 3x3 chunks around the origin chunk, primed from the noise generator and carved by vanilla caves.
+     */
+    static ChunkPrimer[] generateChunks() {
+        MidnightNoiseGenerator noiseGenerator = new MidnightNoiseGenerator(new Random(BenchmarkBootstrap.SEED));
+        NoiseChunkPrimer noisePrimer = new NoiseChunkPrimer(HORIZONTAL_GRANULARITY, VERTICAL_GRANULARITY, NOISE_WIDTH, NOISE_HEIGHT);
+        NoiseChunkPrimer.DensityStates densityStates = new NoiseChunkPrimer.DensityStates(Blocks.STONE.getDefaultState(), Blocks.WATER.getDefaultState(), SURFACE_CAVE_BOUNDARY, SEA_LEVEL);
+
+        BiomeLayers<Biome> surfaceLayers = BiomeLayerType.SURFACE.make(BenchmarkBootstrap.SEED);
+        BiomeLayers<CavernousBiome> undergroundLayers = BenchmarkBootstrap.constantCavernLayers(BenchmarkBootstrap.SEED);
+
+        ConfiguredCarver<ProbabilityConfig> carver = new ConfiguredCarver<>(WorldCarver.CAVE, new ProbabilityConfig(1.0F / 7.0F));
+        SharedSeedRandom random = new SharedSeedRandom();
+
+        ChunkPrimer[] chunks = new ChunkPrimer[9];
+        for (int chunkZ = -1; chunkZ <= 1; chunkZ++) {
+            for (int chunkX = -1; chunkX <= 1; chunkX++) {
+                ChunkPos pos = new ChunkPos(chunkX, chunkZ);
+                ChunkPrimer chunk = new ChunkPrimer(pos, UpgradeData.EMPTY);
+                noisePrimer.primeChunk(chunk, noiseGenerator.sampleChunkNoise(pos, surfaceLayers, undergroundLayers), densityStates);
+
+                // same carver seeding as MidnightChunkGenerator.applyCarvers
+                for (int originZ = chunkZ - 8; originZ <= chunkZ + 8; originZ++) {
+                    for (int originX = chunkX - 8; originX <= chunkX + 8; originX++) {
+                        random.setLargeFeatureSeed(BenchmarkBootstrap.SEED, originX, originZ);
+                        if (carver.shouldCarve(random, originX, originZ)) {
+                            carver.func_227207_a_(chunk, p -> Biomes.PLAINS, random, SEA_LEVEL, originX, originZ, chunkX, chunkZ, chunk.getCarvingMask(GenerationStage.Carving.AIR));
+                        }
+                    }
+                }
+
+                chunks[chunkIndex(chunkX, chunkZ)] = chunk;
+            }
+        }
+
+        return chunks;
+    }
+
+    static ChunkFloorHeights.ChunkSource chunkSource(ChunkPrimer[] chunks) {
+        return (chunkX, chunkZ) -> {
+            if (chunkX < -1 || chunkX > 1 || chunkZ < -1 || chunkZ > 1) {
+                return null;
+            }
+            return chunks[chunkIndex(chunkX, chunkZ)];
+        };
+    }
+
+    /**
+     * Picks veins started in the origin chunk, each stored as its minimum corner and horizontal size, with the same
+     * bounds as {@code MidnightOreFeature.place}.
+     */
+    static int[] prepareVeins(Random random) {
+        int[] veins = new int[VEIN_COUNT * 4];
+        for (int i = 0; i < VEIN_COUNT; i++) {
+            int size = VEIN_SIZES[random.nextInt(VEIN_SIZES.length)];
+            float length = size / 8.0F;
+            int halfSize = MathHelper.ceil((size / 16.0F * 2.0F + 1.0F) / 2.0F);
+
+            int x = random.nextInt(16);
+            int y = random.nextInt(MAX_VEIN_Y);
+            int z = random.nextInt(16);
+
+            int offset = i * 4;
+            veins[offset] = x - MathHelper.ceil(length) - halfSize;
+            veins[offset + 1] = y - 2 - halfSize;
+            veins[offset + 2] = z - MathHelper.ceil(length) - halfSize;
+            veins[offset + 3] = 2 * (MathHelper.ceil(length) + halfSize);
+        }
+        return veins;
+    }
+
+    // same test as the fallback in MidnightOreFeature.place, with the height WorldGenRegion.getHeight reports
+    static boolean scanAccepts(ChunkPrimer[] chunks, int minX, int minY, int minZ, int sizeXZ) {
+        for (int x = minX; x <= minX + sizeXZ; ++x) {
+            for (int z = minZ; z <= minZ + sizeXZ; ++z) {
+                ChunkPrimer chunk = chunks[chunkIndex(x >> 4, z >> 4)];
+                if (minY <= chunk.getTopBlockY(Heightmap.Type.OCEAN_FLOOR_WG, x & 15, z & 15) + 1) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void digColumn(ChunkPrimer[] chunks, Random random) {
+        ChunkPrimer chunk = chunks[random.nextInt(chunks.length)];
+        int localX = random.nextInt(16);
+        int localZ = random.nextInt(16);
+
+        int top = chunk.getTopBlockY(Heightmap.Type.OCEAN_FLOOR_WG, localX, localZ);
+        int bottom = Math.max(top - random.nextInt(MAX_VEIN_Y), 1);
+
+        BlockPos.Mutable pos = new BlockPos.Mutable();
+        for (int y = top; y >= bottom; y--) {
+            chunk.setBlockState(pos.setPos(localX, y, localZ), AIR, false);
+        }
+    }
+
+    private static int chunkIndex(int chunkX, int chunkZ) {
+        return (chunkX + 1) + (chunkZ + 1) * 3;
+    }
+}
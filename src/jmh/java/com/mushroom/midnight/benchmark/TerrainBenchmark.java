@@ -0,0 +1,187 @@
+package com.mushroom.midnight.benchmark;
+
+import com.mushroom.midnight.common.biome.BiomeLayerType;
+import com.mushroom.midnight.common.biome.BiomeLayers;
+import com.mushroom.midnight.common.biome.cavern.CavernousBiome;
+import com.mushroom.midnight.common.world.LayeredSurfaceBuilder;
+import com.mushroom.midnight.common.world.MidnightNoiseGenerator;
+import com.mushroom.midnight.common.world.pregen.PregenArea;
+import com.mushroom.midnight.common.world.util.NoiseChunkPrimer;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.util.SharedSeedRandom;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.biome.Biome;
+import net.minecraft.world.biome.Biomes;
+import net.minecraft.world.chunk.ChunkPrimer;
+import net.minecraft.world.chunk.UpgradeData;
+import net.minecraft.world.gen.Heightmap;
+import net.minecraft.world.gen.surfacebuilders.SurfaceBuilderConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.mushroom.midnight.common.world.MidnightChunkGenerator.*;
+import static com.mushroom.midnight.common.world.MidnightNoiseGenerator.*;
+
+/**
+ * Measures the stages of {@code MidnightChunkGenerator.makeBase} and surface building in isolation. The chunk generator
+ * itself needs a live world, so these drive the same {@link MidnightNoiseGenerator} and {@link NoiseChunkPrimer} setup
+ * directly with vanilla stone and water standing in for nightstone and dark water.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TerrainBenchmark {
+    // large enough that no iteration runs out of chunks, so no chunk is ever sampled twice from a warm cache
+    private static final PregenArea AREA = PregenArea.radius(0, 0, 1 << 15);
+
+    private MidnightNoiseGenerator noiseGenerator;
+    private NoiseChunkPrimer noisePrimer;
+
+    private BiomeLayers<Biome> surfaceLayers;
+    private BiomeLayers<CavernousBiome> undergroundLayers;
+
+    private LayeredSurfaceBuilder surfaceBuilder;
+    private LayeredSurfaceBuilder cavernBuilder;
+    private SurfaceBuilderConfig surfaceConfig;
+
+    private BlockState defaultBlock;
+    private BlockState defaultFluid;
+
+    private NoiseChunkPrimer.DensityStates densityStates;
+
+    private final double[] column = new double[NOISE_HEIGHT + 1];
+
+    private long cursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkBootstrap.init();
+
+        this.noiseGenerator = new MidnightNoiseGenerator(new Random(BenchmarkBootstrap.SEED));
+        this.noisePrimer = new NoiseChunkPrimer(HORIZONTAL_GRANULARITY, VERTICAL_GRANULARITY, NOISE_WIDTH, NOISE_HEIGHT);
+
+        this.surfaceLayers = BiomeLayerType.SURFACE.make(BenchmarkBootstrap.SEED);
+        this.undergroundLayers = BenchmarkBootstrap.constantCavernLayers(BenchmarkBootstrap.SEED);
+
+        this.surfaceBuilder = new LayeredSurfaceBuilder(SurfaceBuilderConfig::deserialize, 0, 0);
+        this.cavernBuilder = new LayeredSurfaceBuilder(SurfaceBuilderConfig::deserialize, 1, Integer.MAX_VALUE).withMaxY(SURFACE_CAVE_BOUNDARY);
+        this.surfaceConfig = new SurfaceBuilderConfig(Blocks.GRASS_BLOCK.getDefaultState(), Blocks.DIRT.getDefaultState(), Blocks.GRAVEL.getDefaultState());
+
+        this.defaultBlock = Blocks.STONE.getDefaultState();
+        this.defaultFluid = Blocks.WATER.getDefaultState();
+        this.densityStates = new NoiseChunkPrimer.DensityStates(this.defaultBlock, this.defaultFluid, SURFACE_CAVE_BOUNDARY, SEA_LEVEL);
+    }
+
+    @Setup(Level.Iteration)
+    public void restartWalk() {
+        // every iteration walks the same chunks from cold caches, so iterations stay comparable with each other
+        this.noiseGenerator.invalidateCaches();
+        this.cursor = 0;
+    }
+
+    @Benchmark
+    public double[] columnDensity() {
+        ChunkPos pos = this.nextChunk();
+        this.noiseGenerator.populateColumnNoise(this.column, pos.x * NOISE_WIDTH, pos.z * NOISE_WIDTH, this.surfaceLayers, this.undergroundLayers);
+        return this.column;
+    }
+
+    @Benchmark
+    public double[] chunkNoise() {
+        return this.noiseGenerator.sampleChunkNoise(this.nextChunk(), this.surfaceLayers, this.undergroundLayers);
+    }
+
+    @Benchmark
+    public double[] chunkNoiseUncached() {
+        // baseline for chunkNoise: every chunk evaluates its own 2D noise fields, including the shared border columns
+        this.noiseGenerator.invalidateCaches();
+        return this.noiseGenerator.sampleChunkNoise(this.nextChunk(), this.surfaceLayers, this.undergroundLayers);
+    }
+
+    @Benchmark
+    public ChunkPrimer primeChunk(PreparedChunk prepared) {
+        return this.primeChunk(prepared.pos, prepared.noise);
+    }
+
+    @Benchmark
+    public ChunkPrimer primeChunkHandler(PreparedChunk prepared) {
+        ChunkPrimer chunk = new ChunkPrimer(prepared.pos, UpgradeData.EMPTY);
+        this.noisePrimer.primeChunk(chunk, prepared.noise, (density, x, y, z) -> {
+            if (density > 0.0F) {
+                return this.defaultBlock;
+            } else if (y < SEA_LEVEL && y > SURFACE_CAVE_BOUNDARY) {
+                return this.defaultFluid;
+            }
+            return null;
+        });
+        return chunk;
+    }
+
+    @Benchmark
+    public ChunkPrimer buildSurface(PreparedChunk prepared) {
+        ChunkPrimer chunk = prepared.chunk;
+        ChunkPos pos = prepared.pos;
+
+        SharedSeedRandom random = new SharedSeedRandom();
+        random.setBaseChunkSeed(pos.x, pos.z);
+
+        for (int localX = 0; localX < 16; localX++) {
+            for (int localZ = 0; localZ < 16; localZ++) {
+                int globalX = pos.getXStart() + localX;
+                int globalZ = pos.getZStart() + localZ;
+                int height = chunk.getTopBlockY(Heightmap.Type.WORLD_SURFACE_WG, localX, localZ) + 1;
+
+                this.surfaceBuilder.buildSurface(random, chunk, Biomes.DEFAULT, globalX, globalZ, height, 0.0, this.defaultBlock, this.defaultFluid, SEA_LEVEL, BenchmarkBootstrap.SEED, this.surfaceConfig);
+                this.cavernBuilder.buildSurface(random, chunk, Biomes.DEFAULT, globalX, globalZ, height, 0.0, this.defaultBlock, this.defaultFluid, SEA_LEVEL, BenchmarkBootstrap.SEED, this.surfaceConfig);
+            }
+        }
+
+        return chunk;
+    }
+
+    private ChunkPrimer primeChunk(ChunkPos pos, double[] noise) {
+        ChunkPrimer chunk = new ChunkPrimer(pos, UpgradeData.EMPTY);
+        this.noisePrimer.primeChunk(chunk, noise, this.densityStates);
+        return chunk;
+    }
+
+    private ChunkPos nextChunk() {
+        // walk chunks in the order the pregenerator visits them, so cache hits come only from neighbouring chunks that
+        // were generated just before, like they would in a real world
+        long cursor = this.cursor++;
+        while (!AREA.contains(cursor)) {
+            cursor = this.cursor++;
+        }
+        return AREA.getChunk(cursor);
+    }
+
+    @State(Scope.Thread)
+    public static class PreparedChunk {
+        ChunkPos pos;
+        double[] noise;
+        ChunkPrimer chunk;
+
+        @Setup(Level.Invocation)
+        public void prepare(TerrainBenchmark terrain) {
+            this.pos = terrain.nextChunk();
+            this.noise = terrain.noiseGenerator.sampleChunkNoise(this.pos, terrain.surfaceLayers, terrain.undergroundLayers);
+            this.chunk = terrain.primeChunk(this.pos, this.noise);
+        }
+    }
+}
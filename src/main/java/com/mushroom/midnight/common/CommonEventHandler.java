@@ -3,11 +3,13 @@ package com.mushroom.midnight.common;
 import com.mushroom.midnight.Midnight;
 import com.mushroom.midnight.common.capability.RiftTraveller;
 import com.mushroom.midnight.common.capability.RifterCapturable;
+import com.mushroom.midnight.common.command.MidnightCommand;
 import com.mushroom.midnight.common.config.MidnightConfig;
 import com.mushroom.midnight.common.event.RifterCaptureEvent;
 import com.mushroom.midnight.common.event.RifterReleaseEvent;
 import com.mushroom.midnight.common.registry.MidnightEffects;
 import com.mushroom.midnight.common.util.MidnightUtil;
+import com.mushroom.midnight.common.world.MidnightChunkGenerator;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.EntityType;
 import net.minecraft.entity.LivingEntity;
@@ -16,14 +18,18 @@ import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.util.DamageSource;
 import net.minecraft.util.ResourceLocation;
 import net.minecraft.world.World;
+import net.minecraft.world.gen.ChunkGenerator;
+import net.minecraft.world.server.ServerWorld;
 import net.minecraftforge.event.AttachCapabilitiesEvent;
 import net.minecraftforge.event.TickEvent;
 import net.minecraftforge.event.entity.EntityEvent;
 import net.minecraftforge.event.entity.PlaySoundAtEntityEvent;
 import net.minecraftforge.event.entity.living.LivingEvent;
 import net.minecraftforge.event.entity.living.LivingHurtEvent;
+import net.minecraftforge.event.world.WorldEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.event.server.FMLServerStartingEvent;
 
 @Mod.EventBusSubscriber(modid = Midnight.MODID)
 public class CommonEventHandler {
@@ -53,6 +59,21 @@ public class CommonEventHandler {
         }
     }
 
+    @SubscribeEvent
+    public static void onServerStarting(FMLServerStartingEvent event) {
+        MidnightCommand.register(event.getCommandDispatcher());
+    }
+
+    @SubscribeEvent
+    public static void onWorldUnload(WorldEvent.Unload event) {
+        if (event.getWorld() instanceof ServerWorld) {
+            ChunkGenerator<?> generator = ((ServerWorld) event.getWorld()).getChunkProvider().getChunkGenerator();
+            if (generator instanceof MidnightChunkGenerator) {
+                ((MidnightChunkGenerator) generator).invalidateCaches();
+            }
+        }
+    }
+
     @SubscribeEvent
     public static void onEntityTick(LivingEvent.LivingUpdateEvent event) {
         LivingEntity entity = event.getEntityLiving();
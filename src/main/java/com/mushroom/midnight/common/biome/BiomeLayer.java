@@ -1,19 +1,21 @@
 package com.mushroom.midnight.common.biome;
 
 import com.mushroom.midnight.Midnight;
-import net.minecraft.world.gen.area.LazyArea;
+import com.mushroom.midnight.common.world.layer.CachingArea;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.lang.reflect.Array;
 import java.util.function.IntFunction;
+import java.util.function.Supplier;
 
 public final class BiomeLayer<T> {
     private final Class<T> type;
-    private final LazyArea sampler;
+    private final Supplier<CachingArea> sampler;
     private final IntFunction<T> function;
     private final T defaultValue;
 
-    BiomeLayer(Class<T> type, LazyArea sampler, IntFunction<T> function, T defaultValue) {
+    BiomeLayer(Class<T> type, Supplier<CachingArea> sampler, IntFunction<T> function, T defaultValue) {
         this.type = type;
         this.sampler = sampler;
         this.function = function;
@@ -22,23 +24,42 @@ public final class BiomeLayer<T> {
 
     @Nonnull
     public T sample(int x, int y) {
-        int value = this.sampler.getValue(x, y);
+        int value = this.sampler.get().getValue(x, y);
         return this.applyFunction(value);
     }
 
     @SuppressWarnings("unchecked")
     public T[] sample(int x, int y, int width, int height) {
+        int[] values = this.sampler.get().fill(x, y, width, height);
+
         T[] result = (T[]) Array.newInstance(this.type, width * height);
-        for (int localY = 0; localY < height; localY++) {
-            for (int localX = 0; localX < width; localX++) {
-                int value = this.sampler.getValue(localX + x, localY + y);
-                result[localX + localY * width] = this.applyFunction(value);
-            }
+        for (int i = 0; i < result.length; i++) {
+            result[i] = this.applyFunction(values[i]);
         }
 
         return result;
     }
 
+    /**
+     * Samples the raw layer values of a region into the given buffer, allocating a new one if it is null or too small.
+     */
+    public int[] sampleValues(int x, int y, int width, int height, @Nullable int[] result) {
+        int size = width * height;
+        if (result == null || result.length < size) {
+            result = new int[size];
+        }
+
+        int[] values = this.sampler.get().fill(x, y, width, height);
+        System.arraycopy(values, 0, result, 0, size);
+
+        return result;
+    }
+
+    @Nonnull
+    public T byValue(int value) {
+        return this.applyFunction(value);
+    }
+
     @Nonnull
     private T applyFunction(int value) {
         T biome = this.function.apply(value);
@@ -46,9 +46,10 @@ public final class BiomeLayerRenderer {
     }
 
     public static void renderLayer(BiomeLayer<Biome> layer, BufferedImage image) {
+        int[] values = layer.sampleValues(0, 0, image.getWidth(), image.getHeight(), null);
         for (int y = 0; y < image.getHeight(); y++) {
             for (int x = 0; x < image.getWidth(); x++) {
-                Biome biome = layer.sample(x, y);
+                Biome biome = layer.byValue(values[x + y * image.getWidth()]);
                 Pattern pattern = BIOME_PATTERNS.get(biome);
                 int color = pattern != null ? pattern.get(x, y) : 0xFFFFFF;
                 image.setRGB(x, y, color);
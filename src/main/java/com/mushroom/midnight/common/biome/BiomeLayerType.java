@@ -8,10 +8,8 @@ import net.minecraft.util.registry.Registry;
 import net.minecraft.world.biome.Biome;
 import net.minecraft.world.biome.Biomes;
 import net.minecraft.world.gen.IExtendedNoiseRandom;
-import net.minecraft.world.gen.LazyAreaLayerContext;
 import net.minecraft.world.gen.area.IArea;
 import net.minecraft.world.gen.area.IAreaFactory;
-import net.minecraft.world.gen.area.LazyArea;
 import net.minecraft.world.gen.layer.LayerUtil;
 import net.minecraft.world.gen.layer.SmoothLayer;
 import net.minecraft.world.gen.layer.ZoomLayer;
@@ -23,7 +21,8 @@ public final class BiomeLayerType<T> {
     public static final BiomeLayerType<Biome> SURFACE = BiomeLayerType.create(Biome.class, BiomeLayerType::buildSurface, Registry.BIOME::getByValue, Biomes.DEFAULT);
     public static final BiomeLayerType<CavernousBiome> UNDERGROUND = BiomeLayerType.create(CavernousBiome.class, BiomeLayerType::buildUnderground, MidnightCavernousBiomes::byId, MidnightCavernousBiomes.CLOSED_CAVERN);
 
-    private static final int MAX_CACHE_SIZE = 25;
+    public static final int DEFAULT_CACHE_SIZE = 1024;
+    private static final int ROOT_CACHE_SIZE = 64;
 
     private final Class<T> type;
     private final ProcedureFactory procedureFactory;
@@ -42,10 +41,27 @@ public final class BiomeLayerType<T> {
     }
 
     public BiomeLayers<T> make(long worldSeed) {
-        BiomeProcedure<LazyArea> procedure = this.procedureFactory.create(value -> new LazyAreaLayerContext(MAX_CACHE_SIZE, worldSeed, value));
+        return this.make(worldSeed, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Layer caches are not thread-safe, so every thread sampling the returned layers gets its own procedure, until
+     * {@link BiomeLayers#release} drops them. The outermost layers cache up to cacheSize values each, with parent layers
+     * using proportionally smaller caches.
+     */
+    public BiomeLayers<T> make(long worldSeed, int cacheSize) {
+        LayerCacheStats cacheStats = new LayerCacheStats();
+        int rootCacheSize = Math.min(ROOT_CACHE_SIZE, cacheSize);
+
+        BiomeLayers.ThreadProcedures procedures = new BiomeLayers.ThreadProcedures(() ->
+                this.procedureFactory.create(value -> new CachingLayerContext(worldSeed, value, rootCacheSize, cacheSize, cacheStats))
+        );
+
         return new BiomeLayers<>(
-                new BiomeLayer<>(this.type, procedure.noise, this.function, this.defaultValue),
-                new BiomeLayer<>(this.type, procedure.block, this.function, this.defaultValue)
+                new BiomeLayer<>(this.type, () -> procedures.get().noise, this.function, this.defaultValue),
+                new BiomeLayer<>(this.type, () -> procedures.get().block, this.function, this.defaultValue),
+                cacheStats,
+                procedures
         );
     }
 
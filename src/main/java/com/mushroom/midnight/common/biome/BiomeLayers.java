@@ -1,11 +1,72 @@
 package com.mushroom.midnight.common.biome;
 
+import com.mushroom.midnight.common.world.layer.CachingArea;
+import com.mushroom.midnight.common.world.layer.LayerCacheStats;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
 public final class BiomeLayers<T> {
     public final BiomeLayer<T> noise;
     public final BiomeLayer<T> block;
 
-    BiomeLayers(BiomeLayer<T> noise, BiomeLayer<T> block) {
+    private final LayerCacheStats cacheStats;
+    private final ThreadProcedures procedures;
+
+    BiomeLayers(BiomeLayer<T> noise, BiomeLayer<T> block, LayerCacheStats cacheStats, ThreadProcedures procedures) {
         this.noise = noise;
         this.block = block;
+        this.cacheStats = cacheStats;
+        this.procedures = procedures;
+    }
+
+    public LayerCacheStats getCacheStats() {
+        return this.cacheStats;
+    }
+
+    /**
+     * Drops the layer procedures and caches of every thread that sampled these layers, including pooled worker threads
+     * that outlive the world. Threads sampling again afterwards build new procedures.
+     */
+    public void release() {
+        this.procedures.release();
+    }
+
+    // per-thread procedures, which are also tracked here so that they can be released from any thread
+    static final class ThreadProcedures {
+        private final Supplier<BiomeProcedure<CachingArea>> factory;
+        private final Set<Slot> slots = ConcurrentHashMap.newKeySet();
+        private final ThreadLocal<Slot> localSlot = ThreadLocal.withInitial(this::createSlot);
+
+        ThreadProcedures(Supplier<BiomeProcedure<CachingArea>> factory) {
+            this.factory = factory;
+        }
+
+        BiomeProcedure<CachingArea> get() {
+            Slot slot = this.localSlot.get();
+            BiomeProcedure<CachingArea> procedure = slot.procedure;
+            if (procedure == null) {
+                procedure = this.factory.get();
+                slot.procedure = procedure;
+            }
+            return procedure;
+        }
+
+        void release() {
+            for (Slot slot : this.slots) {
+                slot.procedure = null;
+            }
+        }
+
+        private Slot createSlot() {
+            Slot slot = new Slot();
+            this.slots.add(slot);
+            return slot;
+        }
+
+        private static class Slot {
+            volatile BiomeProcedure<CachingArea> procedure;
+        }
     }
 }
@@ -5,6 +5,7 @@ import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimap;
 import com.mushroom.midnight.common.biome.ConfigurableBiome;
 import com.mushroom.midnight.common.world.MidnightChunkGenerator;
+import com.mushroom.midnight.common.world.util.SeededSurfaceBuilder;
 import net.minecraft.block.BlockState;
 import net.minecraft.entity.EntityClassification;
 import net.minecraft.util.SharedSeedRandom;
@@ -33,6 +34,7 @@ import java.util.Map;
 
 public abstract class CavernousBiome extends ForgeRegistryEntry<CavernousBiome> implements ConfigurableBiome {
     protected final ConfiguredSurfaceBuilder<?> surfaceBuilder;
+    private final SeededSurfaceBuilder seededSurfaceBuilder;
     protected final float cavernDensity;
     protected final float floorHeight;
     protected final float ceilingHeight;
@@ -49,6 +51,7 @@ public abstract class CavernousBiome extends ForgeRegistryEntry<CavernousBiome>
         Preconditions.checkNotNull(properties.surfaceBuilder, "must have surfacebuilder");
 
         this.surfaceBuilder = properties.surfaceBuilder;
+        this.seededSurfaceBuilder = new SeededSurfaceBuilder(this.surfaceBuilder);
         this.cavernDensity = properties.cavernDensity;
         this.floorHeight = properties.floorHeight;
         this.ceilingHeight = properties.ceilingHeight;
@@ -101,8 +104,11 @@ public abstract class CavernousBiome extends ForgeRegistryEntry<CavernousBiome>
 
     @Override
     public void generateSurface(SharedSeedRandom random, IChunk chunk, int x, int z, int startY, double depth, BlockState defaultBlock, BlockState defaultFluid, int seaLevel, long seed) {
-        this.surfaceBuilder.setSeed(seed);
-        this.surfaceBuilder.buildSurface(random, chunk, Biomes.DEFAULT, x, z, startY, depth, defaultBlock, defaultFluid, seaLevel, seed);
+        this.seededSurfaceBuilder.get(seed).buildSurface(random, chunk, Biomes.DEFAULT, x, z, startY, depth, defaultBlock, defaultFluid, seaLevel, seed);
+    }
+
+    public void prepareSurface(long seed) {
+        this.seededSurfaceBuilder.setSeed(seed);
     }
 
     @Override
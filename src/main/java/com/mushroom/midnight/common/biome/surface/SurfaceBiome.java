@@ -2,6 +2,7 @@ package com.mushroom.midnight.common.biome.surface;
 
 import com.mushroom.midnight.common.biome.ConfigurableBiome;
 import com.mushroom.midnight.common.world.MidnightChunkGenerator;
+import com.mushroom.midnight.common.world.util.SeededSurfaceBuilder;
 import net.minecraft.block.BlockState;
 import net.minecraft.entity.EntityClassification;
 import net.minecraft.util.SharedSeedRandom;
@@ -23,6 +24,7 @@ import net.minecraft.world.gen.surfacebuilders.SurfaceBuilder;
 import javax.annotation.Nullable;
 import java.util.Collection;
 import java.util.List;
+import java.util.Random;
 
 public abstract class SurfaceBiome extends Biome implements ConfigurableBiome {
     private final float ridgeWeight;
@@ -35,9 +37,13 @@ public abstract class SurfaceBiome extends Biome implements ConfigurableBiome {
     private final float fogStart;
     private final float fogEnd;
 
+    private final SeededSurfaceBuilder seededSurfaceBuilder;
+
     protected SurfaceBiome(Properties properties) {
         super(properties);
 
+        this.seededSurfaceBuilder = new SeededSurfaceBuilder(this.getSurfaceBuilder());
+
         this.ridgeWeight = properties.ridgeWeight;
         this.densityScale = properties.densityScale;
 
@@ -113,6 +119,15 @@ public abstract class SurfaceBiome extends Biome implements ConfigurableBiome {
         this.decorate(stage, generator, world, seed, random, origin);
     }
 
+    @Override
+    public void buildSurface(Random random, IChunk chunk, int x, int z, int startHeight, double noise, BlockState defaultBlock, BlockState defaultFluid, int seaLevel, long seed) {
+        this.seededSurfaceBuilder.get(seed).buildSurface(random, chunk, this, x, z, startHeight, noise, defaultBlock, defaultFluid, seaLevel, seed);
+    }
+
+    public void prepareSurface(long seed) {
+        this.seededSurfaceBuilder.setSeed(seed);
+    }
+
     @Override
     public void generateSurface(SharedSeedRandom random, IChunk chunk, int x, int z, int y, double depth, BlockState defaultBlock, BlockState defaultFluid, int seaLevel, long seed) {
         this.buildSurface(random, chunk, x, z, y, depth, defaultBlock, defaultFluid, seaLevel, seed);
@@ -18,7 +18,18 @@ public class RiftTraveller implements ICapabilityProvider, ICapabilitySerializab
     private int cooldown;
     private boolean inRift;
 
+    private MidnightTeleporter.Pending pendingTeleport;
+
     public void update(Entity entity) {
+        // hold the cooldown while the destination is being generated. leaving the rift abandons the teleport
+        if (this.pendingTeleport != null) {
+            if (this.pendingTeleport.tick(entity, this.inRift)) {
+                this.pendingTeleport = null;
+            }
+            this.inRift = false;
+            return;
+        }
+
         if (this.cooldown > 0 && !this.inRift) {
             this.cooldown--;
         }
@@ -26,7 +37,11 @@ public class RiftTraveller implements ICapabilityProvider, ICapabilitySerializab
         if (entity.world instanceof ServerWorld) {
             if (this.inRift && this.isReady()) {
                 this.cooldown = 80;
-                MidnightTeleporter.INSTANCE.teleport(entity);
+
+                MidnightTeleporter.Pending teleport = MidnightTeleporter.INSTANCE.prepare(entity);
+                if (teleport != null && !teleport.tick(entity, true)) {
+                    this.pendingTeleport = teleport;
+                }
             }
         }
 
@@ -0,0 +1,172 @@
+package com.mushroom.midnight.common.command;
+
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import com.mojang.brigadier.exceptions.SimpleCommandExceptionType;
+import com.mushroom.midnight.common.world.MidnightChunkGenerator;
+import com.mushroom.midnight.common.world.MidnightTeleporter;
+import com.mushroom.midnight.common.world.layer.LayerCacheStats;
+import com.mushroom.midnight.common.world.pregen.MidnightPregenerator;
+import com.mushroom.midnight.common.world.pregen.PregenArea;
+import com.mushroom.midnight.common.world.pregen.PregenHandler;
+import com.mushroom.midnight.common.world.util.ChunkBiomeCache;
+import net.minecraft.command.CommandSource;
+import net.minecraft.command.Commands;
+import net.minecraft.util.text.StringTextComponent;
+import net.minecraft.util.text.TranslationTextComponent;
+import net.minecraft.world.server.ServerWorld;
+
+import java.util.Map;
+
+public final class MidnightCommand {
+    private static final SimpleCommandExceptionType NO_DIMENSION = new SimpleCommandExceptionType(new TranslationTextComponent("commands.midnight.pregen.no_dimension"));
+    private static final SimpleCommandExceptionType NO_GENERATOR = new SimpleCommandExceptionType(new TranslationTextComponent("commands.midnight.no_dimension"));
+    private static final SimpleCommandExceptionType ALREADY_RUNNING = new SimpleCommandExceptionType(new TranslationTextComponent("commands.midnight.pregen.running"));
+    private static final SimpleCommandExceptionType NOT_RUNNING = new SimpleCommandExceptionType(new TranslationTextComponent("commands.midnight.pregen.none"));
+
+    private MidnightCommand() {
+    }
+
+    public static void register(CommandDispatcher<CommandSource> dispatcher) {
+        dispatcher.register(Commands.literal("midnight")
+                .requires(source -> source.hasPermissionLevel(4))
+                .then(Commands.literal("pregen")
+                        .then(Commands.literal("radius")
+                                .then(Commands.argument("radius", IntegerArgumentType.integer(1))
+                                        .executes(ctx -> startRadius(ctx, 0, 0))
+                                        .then(Commands.argument("x", IntegerArgumentType.integer())
+                                                .then(Commands.argument("z", IntegerArgumentType.integer())
+                                                        .executes(ctx -> startRadius(ctx, IntegerArgumentType.getInteger(ctx, "x"), IntegerArgumentType.getInteger(ctx, "z")))
+                                                )
+                                        )
+                                )
+                        )
+                        .then(Commands.literal("area")
+                                .then(Commands.argument("x1", IntegerArgumentType.integer())
+                                        .then(Commands.argument("z1", IntegerArgumentType.integer())
+                                                .then(Commands.argument("x2", IntegerArgumentType.integer())
+                                                        .then(Commands.argument("z2", IntegerArgumentType.integer())
+                                                                .executes(MidnightCommand::startArea)
+                                                        )
+                                                )
+                                        )
+                                )
+                        )
+                        .then(Commands.literal("pause").executes(MidnightCommand::pause))
+                        .then(Commands.literal("resume").executes(MidnightCommand::resume))
+                        .then(Commands.literal("cancel").executes(MidnightCommand::cancel))
+                        .then(Commands.literal("status").executes(MidnightCommand::status))
+                )
+                .then(Commands.literal("biome_cache").executes(MidnightCommand::biomeCache))
+                .then(Commands.literal("rift_waits").executes(MidnightCommand::riftWaits))
+                .then(Commands.literal("spawn_stats").executes(MidnightCommand::spawnStats))
+        );
+    }
+
+    private static int startRadius(CommandContext<CommandSource> ctx, int x, int z) throws CommandSyntaxException {
+        int radius = IntegerArgumentType.getInteger(ctx, "radius");
+        return start(ctx.getSource(), PregenArea.radius(x, z, radius));
+    }
+
+    private static int startArea(CommandContext<CommandSource> ctx) throws CommandSyntaxException {
+        PregenArea area = PregenArea.corners(
+                IntegerArgumentType.getInteger(ctx, "x1"), IntegerArgumentType.getInteger(ctx, "z1"),
+                IntegerArgumentType.getInteger(ctx, "x2"), IntegerArgumentType.getInteger(ctx, "z2")
+        );
+        return start(ctx.getSource(), area);
+    }
+
+    private static int start(CommandSource source, PregenArea area) throws CommandSyntaxException {
+        ServerWorld world = PregenHandler.getMidnightWorld(source.getServer());
+        if (world == null) {
+            throw NO_DIMENSION.create();
+        }
+
+        if (!PregenHandler.start(world, area)) {
+            throw ALREADY_RUNNING.create();
+        }
+
+        source.sendFeedback(new TranslationTextComponent("commands.midnight.pregen.started", area.getChunkCount(), area.toString()), true);
+        return 1;
+    }
+
+    private static int pause(CommandContext<CommandSource> ctx) throws CommandSyntaxException {
+        getActive().pause();
+        ctx.getSource().sendFeedback(new TranslationTextComponent("commands.midnight.pregen.paused"), true);
+        return 1;
+    }
+
+    private static int resume(CommandContext<CommandSource> ctx) throws CommandSyntaxException {
+        getActive().resume();
+        ctx.getSource().sendFeedback(new TranslationTextComponent("commands.midnight.pregen.resumed"), true);
+        return 1;
+    }
+
+    private static int cancel(CommandContext<CommandSource> ctx) throws CommandSyntaxException {
+        getActive();
+        PregenHandler.cancel();
+        ctx.getSource().sendFeedback(new TranslationTextComponent("commands.midnight.pregen.cancelled"), true);
+        return 1;
+    }
+
+    private static int status(CommandContext<CommandSource> ctx) throws CommandSyntaxException {
+        ctx.getSource().sendFeedback(new StringTextComponent(getActive().describeProgress()), false);
+        return 1;
+    }
+
+    private static int biomeCache(CommandContext<CommandSource> ctx) throws CommandSyntaxException {
+        MidnightChunkGenerator generator = getGenerator(ctx.getSource());
+        ChunkBiomeCache cache = generator.getBiomeCache();
+
+        CommandSource source = ctx.getSource();
+        sendCacheStats(source, "Biome cache", cache.getHits(), cache.getMisses());
+
+        LayerCacheStats surfaceStats = generator.getSurfaceLayers().getCacheStats();
+        sendCacheStats(source, "Surface layers", surfaceStats.getHits(), surfaceStats.getMisses());
+        for (Map.Entry<Long, long[]> entry : surfaceStats.getLayerCounts().entrySet()) {
+            sendCacheStats(source, "  Layer " + entry.getKey(), entry.getValue()[0], entry.getValue()[1]);
+        }
+
+        LayerCacheStats undergroundStats = generator.getUndergroundLayers().getCacheStats();
+        sendCacheStats(source, "Underground layers", undergroundStats.getHits(), undergroundStats.getMisses());
+        for (Map.Entry<Long, long[]> entry : undergroundStats.getLayerCounts().entrySet()) {
+            sendCacheStats(source, "  Layer " + entry.getKey(), entry.getValue()[0], entry.getValue()[1]);
+        }
+
+        return 1;
+    }
+
+    private static int riftWaits(CommandContext<CommandSource> ctx) {
+        ctx.getSource().sendFeedback(new StringTextComponent(MidnightTeleporter.INSTANCE.describeWaits()), false);
+        return 1;
+    }
+
+    private static int spawnStats(CommandContext<CommandSource> ctx) throws CommandSyntaxException {
+        MidnightChunkGenerator generator = getGenerator(ctx.getSource());
+        ctx.getSource().sendFeedback(new StringTextComponent(generator.getEntitySpawner().describe()), false);
+        return 1;
+    }
+
+    private static MidnightChunkGenerator getGenerator(CommandSource source) throws CommandSyntaxException {
+        ServerWorld world = PregenHandler.getMidnightWorld(source.getServer());
+        if (world == null || !(world.getChunkProvider().getChunkGenerator() instanceof MidnightChunkGenerator)) {
+            throw NO_GENERATOR.create();
+        }
+        return (MidnightChunkGenerator) world.getChunkProvider().getChunkGenerator();
+    }
+
+    private static void sendCacheStats(CommandSource source, String name, long hits, long misses) {
+        double hitRate = hits + misses > 0 ? hits * 100.0 / (hits + misses) : 0.0;
+        source.sendFeedback(new StringTextComponent(String.format("%s: %d hits, %d misses (%.1f%% hit rate)", name, hits, misses, hitRate)), false);
+    }
+
+    private static MidnightPregenerator getActive() throws CommandSyntaxException {
+        MidnightPregenerator pregenerator = PregenHandler.getActive();
+        if (pregenerator == null) {
+            throw NOT_RUNNING.create();
+        }
+        return pregenerator;
+    }
+}
@@ -25,6 +25,7 @@ public class MidnightConfig {
         public final ForgeConfigSpec.ConfigValue<List<String>> capturableEntities;
         public final ForgeConfigSpec.ConfigValue<List<String>> notCapturableAnimals;
         public final ForgeConfigSpec.ConfigValue<Boolean> foreignFlowersFromBonemeal;
+        public final ForgeConfigSpec.ConfigValue<Integer> biomeLayerCacheSize;
 
         public CatGeneral(ForgeConfigSpec.Builder builder) {
             builder.comment("All the options that can only be set on the server.").push("general");
@@ -72,6 +73,10 @@ public class MidnightConfig {
                     .comment("Allows the modded flowers to appear with bonemeal in Midnight. Default= false")
                     .translation(getTranslation("foreign_flowers_from_bonemeal"))
                     .define("foreign_flowers_from_bonemeal", false);
+            biomeLayerCacheSize = builder
+                    .comment("The number of values cached by each biome generation layer, per worldgen thread. Larger values use more memory but resample less. Default= 1024")
+                    .translation(getTranslation("biome_layer_cache_size"))
+                    .defineInRange("biome_layer_cache_size", 1024, 64, 65536);
             builder.pop();
         }
     }
@@ -2,6 +2,7 @@ package com.mushroom.midnight.common.world;
 
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.EntityClassification;
+import net.minecraft.util.math.MathHelper;
 import net.minecraft.world.server.ServerWorld;
 
 import java.util.Arrays;
@@ -28,19 +29,47 @@ public class EntityClassificationCount {
     }
 
     public static EntityClassificationCount count(ServerWorld world, Collection<EntityClassification> classifications) {
+        EntityCountIndex index = EntityCountIndex.get(world);
+        if (index != null) {
+            int[] counts = new int[EntityClassification.values().length];
+            for (EntityClassification classification : classifications) {
+                counts[classification.ordinal()] = index.getCount(classification);
+            }
+            return new EntityClassificationCount(counts);
+        }
+
         return count(world, classifications, entity -> true);
     }
 
+    /**
+     * Counts the entities within the given placement level, read from the {@link EntityCountIndex} when the world has
+     * one.
+     */
+    public static EntityClassificationCount count(ServerWorld world, Collection<EntityClassification> classifications, PlacementLevel level) {
+        EntityCountIndex index = EntityCountIndex.get(world);
+        if (index != null && EntityCountIndex.tracks(level)) {
+            int[] counts = new int[EntityClassification.values().length];
+            for (EntityClassification classification : classifications) {
+                counts[classification.ordinal()] = index.getCount(classification, level);
+            }
+            return new EntityClassificationCount(counts);
+        }
+
+        return count(world, classifications, entity -> level.containsY(world, MathHelper.floor(entity.getPosY())));
+    }
+
     public static EntityClassificationCount count(ServerWorld world, Collection<EntityClassification> classifications, Predicate<Entity> predicate) {
         int[] counts = new int[EntityClassification.values().length];
 
+        boolean[] counted = new boolean[counts.length];
+        for (EntityClassification classification : classifications) {
+            counted[classification.ordinal()] = true;
+        }
+
         world.getEntities().forEach(entity -> {
-            EntityClassification currentClassification = entity.getClassification(true);
-            for (EntityClassification entityClassification : classifications) {
-                if (currentClassification == entityClassification) {
-                    counts[entityClassification.ordinal()] += 1;
-                    break;
-                }
+            int ordinal = entity.getClassification(true).ordinal();
+            if (ordinal < counted.length && counted[ordinal] && predicate.test(entity)) {
+                counts[ordinal]++;
             }
         });
 
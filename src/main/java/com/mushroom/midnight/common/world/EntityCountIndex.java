@@ -0,0 +1,278 @@
+package com.mushroom.midnight.common.world;
+
+import com.mushroom.midnight.Midnight;
+import com.mushroom.midnight.common.util.MidnightUtil;
+import com.mushroom.midnight.common.world.feature.placement.SurfacePlacementLevel;
+import com.mushroom.midnight.common.world.feature.placement.UndergroundPlacementLevel;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.EntityClassification;
+import net.minecraft.util.ClassInheritanceMultiMap;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.server.ServerWorld;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.entity.EntityEvent;
+import net.minecraftforge.event.entity.EntityJoinWorldEvent;
+import net.minecraftforge.event.world.ChunkEvent;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.eventbus.api.EventPriority;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Incrementally maintained count of the entities in the Midnight by classification and by the placement level they are
+ * in, so that spawn caps can be checked without scanning every loaded entity.
+ * <p>
+ * Entities are added as they join the world and moved between levels as they cross chunk sections. Forge has no event
+ * for entities leaving the world: entities unloaded with their chunk are dropped on chunk unload, while removed
+ * entities and level changes within a section are picked up by a sweep over a slice of the tracked entities each tick.
+ * The index is only ever touched from the server thread.
+ */
+@Mod.EventBusSubscriber(modid = Midnight.MODID)
+public final class EntityCountIndex {
+    private static final PlacementLevel[] LEVELS = new PlacementLevel[] { SurfacePlacementLevel.INSTANCE, UndergroundPlacementLevel.INSTANCE };
+    private static final int NO_LEVEL = LEVELS.length;
+    private static final int LEVEL_STRIDE = LEVELS.length + 1;
+
+    private static final int MIN_SWEEP_BUDGET = 32;
+    private static final int SWEEP_PERIOD = 20;
+
+    private static final Map<ServerWorld, EntityCountIndex> INDICES = new HashMap<>();
+
+    private final ServerWorld world;
+    private final int classificationCount;
+    private final int[] counts;
+
+    private final Map<Entity, Entry> entries = new IdentityHashMap<>();
+    private final List<Entry> sweepEntries = new ArrayList<>();
+    private int sweepCursor;
+
+    private EntityCountIndex(ServerWorld world) {
+        this.world = world;
+        this.classificationCount = EntityClassification.values().length;
+        this.counts = new int[this.classificationCount * LEVEL_STRIDE];
+
+        world.getEntities().forEach(this::add);
+    }
+
+    @Nullable
+    public static EntityCountIndex get(ServerWorld world) {
+        return INDICES.get(world);
+    }
+
+    public static boolean tracks(PlacementLevel level) {
+        return levelIndex(level) != -1;
+    }
+
+    public int getCount(EntityClassification classification, PlacementLevel level) {
+        int ordinal = classification.ordinal();
+        int levelIndex = levelIndex(level);
+        if (ordinal >= this.classificationCount || levelIndex == -1) {
+            return 0;
+        }
+        return this.counts[ordinal * LEVEL_STRIDE + levelIndex];
+    }
+
+    public int getCount(EntityClassification classification) {
+        int ordinal = classification.ordinal();
+        if (ordinal >= this.classificationCount) {
+            return 0;
+        }
+
+        int count = 0;
+        for (int level = 0; level < LEVEL_STRIDE; level++) {
+            count += this.counts[ordinal * LEVEL_STRIDE + level];
+        }
+        return count;
+    }
+
+    public int getTrackedCount() {
+        return this.entries.size();
+    }
+
+    private void add(Entity entity) {
+        if (this.entries.containsKey(entity)) {
+            return;
+        }
+
+        int ordinal = entity.getClassification(true).ordinal();
+        if (ordinal >= this.classificationCount) {
+            return;
+        }
+
+        Entry entry = new Entry(entity, ordinal, this.levelOf(entity), this.sweepEntries.size());
+        this.entries.put(entity, entry);
+        this.sweepEntries.add(entry);
+        this.counts[entry.bucket()]++;
+    }
+
+    private void remove(Entity entity) {
+        Entry entry = this.entries.get(entity);
+        if (entry != null) {
+            this.remove(entry);
+        }
+    }
+
+    private void remove(Entry entry) {
+        this.entries.remove(entry.entity);
+        this.counts[entry.bucket()]--;
+
+        // swap the last entry into the freed slot so that removal stays constant time
+        Entry last = this.sweepEntries.remove(this.sweepEntries.size() - 1);
+        if (last != entry) {
+            last.slot = entry.slot;
+            this.sweepEntries.set(last.slot, last);
+        }
+    }
+
+    private void relocate(Entity entity) {
+        Entry entry = this.entries.get(entity);
+        if (entry != null) {
+            this.relocate(entry);
+        }
+    }
+
+    private void relocate(Entry entry) {
+        int level = this.levelOf(entry.entity);
+        if (level != entry.level) {
+            this.counts[entry.bucket()]--;
+            entry.level = level;
+            this.counts[entry.bucket()]++;
+        }
+    }
+
+    private void sweep() {
+        int size = this.sweepEntries.size();
+        int budget = Math.min(size, Math.max(MIN_SWEEP_BUDGET, size / SWEEP_PERIOD));
+
+        for (int i = 0; i < budget && !this.sweepEntries.isEmpty(); i++) {
+            if (this.sweepCursor >= this.sweepEntries.size()) {
+                this.sweepCursor = 0;
+            }
+
+            Entry entry = this.sweepEntries.get(this.sweepCursor);
+            if (this.isInWorld(entry.entity)) {
+                this.relocate(entry);
+                this.sweepCursor++;
+            } else {
+                // the last entry takes this slot, so it is checked next without advancing
+                this.remove(entry);
+            }
+        }
+    }
+
+    private boolean isInWorld(Entity entity) {
+        return !entity.removed && this.world.getEntityByID(entity.getEntityId()) == entity;
+    }
+
+    private int levelOf(Entity entity) {
+        int y = MathHelper.floor(entity.getPosY());
+        for (int level = 0; level < LEVELS.length; level++) {
+            if (LEVELS[level].containsY(this.world, y)) {
+                return level;
+            }
+        }
+        return NO_LEVEL;
+    }
+
+    private static int levelIndex(PlacementLevel level) {
+        for (int i = 0; i < LEVELS.length; i++) {
+            if (LEVELS[i] == level) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Nullable
+    private static EntityCountIndex get(Entity entity) {
+        return entity.world instanceof ServerWorld ? INDICES.get(entity.world) : null;
+    }
+
+    @SubscribeEvent
+    public static void onWorldLoad(WorldEvent.Load event) {
+        if (event.getWorld() instanceof ServerWorld) {
+            ServerWorld world = (ServerWorld) event.getWorld();
+            if (MidnightUtil.isMidnightDimension(world)) {
+                INDICES.put(world, new EntityCountIndex(world));
+            }
+        }
+    }
+
+    @SubscribeEvent
+    public static void onWorldUnload(WorldEvent.Unload event) {
+        if (event.getWorld() instanceof ServerWorld) {
+            INDICES.remove(event.getWorld());
+        }
+    }
+
+    @SubscribeEvent(priority = EventPriority.LOWEST)
+    public static void onEntityJoinWorld(EntityJoinWorldEvent event) {
+        EntityCountIndex index = get(event.getEntity());
+        if (index != null) {
+            index.add(event.getEntity());
+        }
+    }
+
+    @SubscribeEvent
+    public static void onEnteringChunk(EntityEvent.EnteringChunk event) {
+        // also fired when an entity moves between sections of the same chunk
+        EntityCountIndex index = get(event.getEntity());
+        if (index != null) {
+            index.relocate(event.getEntity());
+        }
+    }
+
+    @SubscribeEvent
+    public static void onChunkUnload(ChunkEvent.Unload event) {
+        if (!(event.getWorld() instanceof ServerWorld) || !(event.getChunk() instanceof Chunk)) {
+            return;
+        }
+
+        EntityCountIndex index = INDICES.get(event.getWorld());
+        if (index != null) {
+            for (ClassInheritanceMultiMap<Entity> entities : ((Chunk) event.getChunk()).getEntityLists()) {
+                for (Entity entity : entities) {
+                    index.remove(entity);
+                }
+            }
+        }
+    }
+
+    @SubscribeEvent
+    public static void onWorldTick(TickEvent.WorldTickEvent event) {
+        if (event.phase != TickEvent.Phase.END || !(event.world instanceof ServerWorld)) {
+            return;
+        }
+
+        EntityCountIndex index = INDICES.get(event.world);
+        if (index != null) {
+            index.sweep();
+        }
+    }
+
+    private static class Entry {
+        final Entity entity;
+        final int classification;
+        int level;
+        int slot;
+
+        Entry(Entity entity, int classification, int level, int slot) {
+            this.entity = entity;
+            this.classification = classification;
+            this.level = level;
+            this.slot = slot;
+        }
+
+        int bucket() {
+            return this.classification * LEVEL_STRIDE + this.level;
+        }
+    }
+}
@@ -5,6 +5,7 @@ import net.minecraft.block.BlockState;
 import net.minecraft.block.material.Material;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.biome.Biome;
+import net.minecraft.world.chunk.ChunkSection;
 import net.minecraft.world.chunk.IChunk;
 import net.minecraft.world.gen.surfacebuilders.SurfaceBuilder;
 import net.minecraft.world.gen.surfacebuilders.SurfaceBuilderConfig;
@@ -44,37 +45,57 @@ public class LayeredSurfaceBuilder extends SurfaceBuilder<SurfaceBuilderConfig>
         boolean wet = false;
         int surfaceLayer = 0;
 
-        for (int localY = Math.min(this.maxY, maxY); localY >= 0; localY--) {
-            BlockPos pos = new BlockPos(localX, localY, localZ);
-            BlockState state = chunk.getBlockState(pos);
-            Material material = state.getMaterial();
-            if (material == Material.WATER) {
-                wet = true;
-            } else if (material == Material.AIR) {
-                wet = false;
-            }
+        BlockPos.Mutable pos = null;
+
+        // the start height comes from the worldgen heightmap, so we walk sections directly and skip any that are all air
+        ChunkSection[] sections = chunk.getSections();
+        int startY = Math.min(Math.min(this.maxY, maxY), 255);
 
-            if (material != Material.ROCK) {
+        for (int sectionY = startY >> 4; sectionY >= 0; sectionY--) {
+            ChunkSection section = sections[sectionY];
+            if (ChunkSection.isEmpty(section)) {
+                wet = false;
                 currentDepth = -1;
                 continue;
             }
 
-            if (currentDepth >= depth) {
-                wet = false;
-                if (surfaceLayer++ > this.maxSurfaceLayer) {
-                    break;
-                } else {
+            int minY = sectionY << 4;
+            for (int localY = Math.min(startY, minY + 15); localY >= minY; localY--) {
+                BlockState state = section.getBlockState(localX, localY & 15, localZ);
+                Material material = state.getMaterial();
+                if (material == Material.WATER) {
+                    wet = true;
+                } else if (material == Material.AIR) {
+                    wet = false;
+                }
+
+                if (material != Material.ROCK) {
+                    currentDepth = -1;
                     continue;
                 }
-            }
 
-            currentDepth++;
+                if (currentDepth >= depth) {
+                    wet = false;
+                    if (surfaceLayer++ > this.maxSurfaceLayer) {
+                        return;
+                    } else {
+                        continue;
+                    }
+                }
+
+                currentDepth++;
+
+                if (surfaceLayer >= this.minSurfaceLayer && surfaceLayer <= this.maxSurfaceLayer) {
+                    if (pos == null) {
+                        pos = new BlockPos.Mutable();
+                    }
+                    pos.setPos(localX, localY, localZ);
 
-            if (surfaceLayer >= this.minSurfaceLayer && surfaceLayer <= this.maxSurfaceLayer) {
-                if (currentDepth == 0) {
-                    chunk.setBlockState(pos, wet ? underWater : top, false);
-                } else {
-                    chunk.setBlockState(pos, wet ? underWater : under, false);
+                    if (currentDepth == 0) {
+                        chunk.setBlockState(pos, wet ? underWater : top, false);
+                    } else {
+                        chunk.setBlockState(pos, wet ? underWater : under, false);
+                    }
                 }
             }
         }
@@ -1,31 +1,46 @@
 package com.mushroom.midnight.common.world;
 
 import com.google.common.collect.Iterables;
+import com.mushroom.midnight.Midnight;
 import com.mushroom.midnight.common.biome.BiomeLayers;
 import com.mushroom.midnight.common.biome.cavern.CavernousBiome;
+import com.mushroom.midnight.common.biome.surface.SurfaceBiome;
 import com.mushroom.midnight.common.registry.MidnightBlocks;
-import com.mushroom.midnight.common.world.feature.placement.UndergroundPlacementLevel;
+import com.mushroom.midnight.common.registry.MidnightCavernousBiomes;
+import com.mushroom.midnight.common.registry.MidnightSurfaceBiomes;
+import com.mushroom.midnight.common.world.generator.MidnightCaveCarver;
+import com.mushroom.midnight.common.world.util.CarverStartCache;
+import com.mushroom.midnight.common.world.util.CaveFloorMap;
+import com.mushroom.midnight.common.world.util.ChunkBiomeCache;
 import com.mushroom.midnight.common.world.util.NoiseChunkPrimer;
+import com.mushroom.midnight.common.world.util.SpawnColumnCache;
+import com.mushroom.midnight.common.world.util.SpawnTable;
+import net.minecraft.block.BlockState;
 import net.minecraft.block.Blocks;
 import net.minecraft.entity.EntityClassification;
 import net.minecraft.util.SharedSeedRandom;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
-import net.minecraft.world.GameRules;
 import net.minecraft.world.IWorld;
 import net.minecraft.world.World;
 import net.minecraft.world.biome.Biome;
 import net.minecraft.world.biome.BiomeManager;
 import net.minecraft.world.chunk.ChunkPrimer;
+import net.minecraft.world.chunk.ChunkSection;
 import net.minecraft.world.chunk.IChunk;
 import net.minecraft.world.gen.*;
 import net.minecraft.world.gen.carver.ConfiguredCarver;
 import net.minecraft.world.server.ServerWorld;
 
+import javax.annotation.Nullable;
 import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 import static com.mushroom.midnight.common.world.MidnightNoiseGenerator.*;
 
@@ -39,13 +54,27 @@ public class MidnightChunkGenerator extends NoiseChunkGenerator<MidnightChunkGen
 
     public static final int SEA_LEVEL = SURFACE_LEVEL + 2;
 
+    private static final int BIOME_CACHE_CAPACITY = 1024;
+    private static final int CARVER_START_CACHE_CAPACITY = 8192;
+    private static final int SPAWN_COLUMN_CACHE_CAPACITY = 64;
+
     private final World world;
     private final MidnightNoiseGenerator noiseGenerator;
     private final NoiseChunkPrimer noisePrimer;
+    private final NoiseChunkPrimer.DensityStates densityStates;
 
     private final BiomeLayers<Biome> surfaceLayers;
     private final BiomeLayers<CavernousBiome> undergroundLayers;
 
+    private final ChunkBiomeCache biomeCache;
+    private final CarverStartCache carverStartCache = new CarverStartCache(CARVER_START_CACHE_CAPACITY);
+    private final MidnightEntitySpawner entitySpawner = new MidnightEntitySpawner(this);
+
+    private final Map<Biome, SpawnTable> surfaceSpawnTables = new ConcurrentHashMap<>();
+    private final Map<CavernousBiome, SpawnTable> cavernSpawnTables = new ConcurrentHashMap<>();
+    private final ThreadLocal<SpawnColumnCache> spawnColumns;
+    private final ThreadLocal<SurfaceColumns> surfaceColumns = ThreadLocal.withInitial(SurfaceColumns::new);
+
     private final INoiseGenerator surfaceDepthNoise;
 
     public MidnightChunkGenerator(World world, BiomeLayers<Biome> surfaceLayers, BiomeLayers<CavernousBiome> undergroundLayers, Config config) {
@@ -54,24 +83,37 @@ public class MidnightChunkGenerator extends NoiseChunkGenerator<MidnightChunkGen
         this.world = world;
         this.noiseGenerator = new MidnightNoiseGenerator(this.randomSeed);
         this.noisePrimer = new NoiseChunkPrimer(HORIZONTAL_GRANULARITY, VERTICAL_GRANULARITY, NOISE_WIDTH, NOISE_HEIGHT);
+        this.densityStates = new NoiseChunkPrimer.DensityStates(this.defaultBlock, this.defaultFluid, SURFACE_CAVE_BOUNDARY, SEA_LEVEL);
 
         this.surfaceLayers = surfaceLayers;
         this.undergroundLayers = undergroundLayers;
+        this.biomeCache = new ChunkBiomeCache(surfaceLayers.block, undergroundLayers.block, BIOME_CACHE_CAPACITY);
 
         this.surfaceDepthNoise = new PerlinNoiseGenerator(this.randomSeed, 4, 0);
+
+        this.prepareSurfaceBuilders(world.getSeed());
+
+        MidnightSurfaceBiomes.allBiomes().forEach(biome -> this.surfaceSpawnTables.put(biome, SpawnTable.of(biome)));
+        for (CavernousBiome biome : MidnightCavernousBiomes.getRegistry().getValues()) {
+            this.cavernSpawnTables.put(biome, SpawnTable.of(biome));
+        }
+        this.spawnColumns = ThreadLocal.withInitial(() -> new SpawnColumnCache(this.biomeCache, this::getSpawnTable, this::getSpawnTable, SPAWN_COLUMN_CACHE_CAPACITY));
+    }
+
+    private void prepareSurfaceBuilders(long seed) {
+        MidnightSurfaceBiomes.allBiomes()
+                .filter(biome -> biome instanceof SurfaceBiome)
+                .forEach(biome -> ((SurfaceBiome) biome).prepareSurface(seed));
+
+        for (CavernousBiome biome : MidnightCavernousBiomes.getRegistry().getValues()) {
+            biome.prepareSurface(seed);
+        }
     }
 
     @Override
     public void makeBase(IWorld world, IChunk chunk) {
         double[] noise = this.noiseGenerator.sampleChunkNoise(chunk.getPos(), this.surfaceLayers, this.undergroundLayers);
-        this.noisePrimer.primeChunk((ChunkPrimer) chunk, noise, (density, x, y, z) -> {
-            if (density > 0.0F) {
-                return this.defaultBlock;
-            } else if (y < SEA_LEVEL && y > SURFACE_CAVE_BOUNDARY) {
-                return this.defaultFluid;
-            }
-            return null;
-        });
+        this.noisePrimer.primeChunk((ChunkPrimer) chunk, noise, this.densityStates);
     }
 
     @Override
@@ -88,45 +130,62 @@ public class MidnightChunkGenerator extends NoiseChunkGenerator<MidnightChunkGen
         int minChunkX = chunkPos.getXStart();
         int minChunkZ = chunkPos.getZStart();
 
-        BlockPos.Mutable blockpos$mutable = new BlockPos.Mutable();
+        ChunkBiomeCache.Entry biomes = this.biomeCache.get(chunkX, chunkZ);
+        SurfaceColumns columns = this.surfaceColumns.get();
+        columns.sample(chunk, this.surfaceDepthNoise, minChunkX, minChunkZ);
 
         for (int localX = 0; localX < 16; localX++) {
             for (int localZ = 0; localZ < 16; localZ++) {
                 int globalX = minChunkX + localX;
                 int globalZ = minChunkZ + localZ;
+                int index = SurfaceColumns.index(localX, localZ);
 
-                int i2 = chunk.getTopBlockY(Heightmap.Type.WORLD_SURFACE_WG, localX, localZ) + 1;
-
-                Biome surfaceBiome = this.getSurfaceBiome(globalX, globalZ);
+                Biome surfaceBiome = biomes.getSurfaceBiome(globalX, globalZ);
+                CavernousBiome cavernousBiome = biomes.getCavernousBiome(globalX, globalZ);
 
-                CavernousBiome cavernousBiome = this.getCavernousBiome(globalX, globalZ);
-
-                int height = chunk.getTopBlockY(Heightmap.Type.WORLD_SURFACE_WG, localX, localZ) + 1;
-
-                double depth = this.surfaceDepthNoise.noiseAt(globalX * 0.0625, globalZ * 0.0625, 0.0625, localX * 0.0625);
+                int height = columns.heights[index];
+                double depth = columns.depths[index];
 
                 surfaceBiome.buildSurface(random, chunk, globalX, globalZ, height, depth, this.defaultBlock, this.defaultFluid, SEA_LEVEL, seed);
                 cavernousBiome.generateSurface(random, chunk, globalX, globalZ, height, depth, this.defaultBlock, this.defaultFluid, SEA_LEVEL, seed);
             }
         }
 
-        makeBedrock(chunk, random);
+        this.placeBedrock(chunk, random, columns);
     }
 
     @Override
-    protected void makeBedrock(IChunk chunkIn, Random rand) {
-        BlockPos.Mutable mutable = new BlockPos.Mutable();
-        int x = chunkIn.getPos().getXStart();
-        int z = chunkIn.getPos().getZStart();
-
-        for (BlockPos pos : BlockPos.getAllInBoxMutable(x, 0, z, x + 15, 0, z + 15)) {
-            for (int y = 0; y < 5; y++) {
-                if (y <= rand.nextInt(5)) {
-                    chunkIn.setBlockState(mutable.setPos(pos.getX(), y, pos.getZ()), Blocks.BEDROCK.getDefaultState(), false);
+    protected void makeBedrock(IChunk chunk, Random random) {
+        SurfaceColumns columns = this.surfaceColumns.get();
+        columns.sampleHeights(chunk);
+        this.placeBedrock(chunk, random, columns);
+    }
+
+    private void placeBedrock(IChunk chunk, Random random, SurfaceColumns columns) {
+        BlockState bedrock = Blocks.BEDROCK.getDefaultState();
+        ChunkSection section = chunk.getSections()[0];
+
+        BlockPos.Mutable pos = null;
+
+        for (int localZ = 0; localZ < 16; localZ++) {
+            for (int localX = 0; localX < 16; localX++) {
+                // below the top of every heightmap, writing straight into the section leaves all bookkeeping unchanged
+                boolean direct = !ChunkSection.isEmpty(section) && columns.lowestTops[SurfaceColumns.index(localX, localZ)] >= 5;
+
+                for (int y = 0; y < 5; y++) {
+                    if (y <= random.nextInt(5)) {
+                        if (direct) {
+                            section.setBlockState(localX, y, localZ, bedrock, false);
+                        } else {
+                            if (pos == null) {
+                                pos = new BlockPos.Mutable();
+                            }
+                            chunk.setBlockState(pos.setPos(localX, y, localZ), bedrock, false);
+                        }
+                    }
                 }
             }
         }
-
     }
 
     @Override
@@ -146,17 +205,24 @@ public class MidnightChunkGenerator extends NoiseChunkGenerator<MidnightChunkGen
 
         SharedSeedRandom random = new SharedSeedRandom();
         BitSet mask = chunk.getCarvingMask(stage);
+        Function<BlockPos, Biome> biomeFunc = pos -> this.getBiome(biomeManager, pos);
 
         for (int nz = chunkZ - 8; nz <= chunkZ + 8; nz++) {
             for (int nx = chunkX - 8; nx <= chunkX + 8; nx++) {
                 int i = 0;
 
                 for (ConfiguredCarver<?> carver : carvers) {
-                    random.setLargeFeatureSeed(this.seed + i, nx, nz);
-                    if (carver.shouldCarve(random, nx, nz)) {
-                        carver.func_227207_a_(chunk, p_227059_2_ -> {
-                            return this.getBiome(biomeManager, p_227059_2_);
-                        }, random, this.getSeaLevel(), nx, nz, chunkX, chunkZ, mask);
+                    if (carver.carver instanceof MidnightCaveCarver) {
+                        MidnightCaveCarver caveCarver = (MidnightCaveCarver) carver.carver;
+                        MidnightCaveCarver.TunnelPath path = this.getTunnelPath(random, carver, caveCarver, i, nx, nz);
+                        if (path != null) {
+                            caveCarver.carvePath(chunk, biomeFunc, path, this.getSeaLevel(), chunkX, chunkZ, mask);
+                        }
+                    } else {
+                        random.setLargeFeatureSeed(this.seed + i, nx, nz);
+                        if (carver.shouldCarve(random, nx, nz)) {
+                            carver.func_227207_a_(chunk, biomeFunc, random, this.getSeaLevel(), nx, nz, chunkX, chunkZ, mask);
+                        }
                     }
 
                     i++;
@@ -165,10 +231,23 @@ public class MidnightChunkGenerator extends NoiseChunkGenerator<MidnightChunkGen
         }
     }
 
+    @Nullable
+    private MidnightCaveCarver.TunnelPath getTunnelPath(SharedSeedRandom random, ConfiguredCarver<?> carver, MidnightCaveCarver caveCarver, int index, int originX, int originZ) {
+        CarverStartCache.Start start = this.carverStartCache.get(carver, index, originX, originZ);
+        if (start == null) {
+            random.setLargeFeatureSeed(this.seed + index, originX, originZ);
+            if (carver.shouldCarve(random, originX, originZ)) {
+                start = new CarverStartCache.Start(caveCarver.recordPath(carver, random, this.getSeaLevel(), originX, originZ));
+            } else {
+                start = CarverStartCache.Start.NONE;
+            }
+            this.carverStartCache.put(carver, index, originX, originZ, start);
+        }
+        return start.getPath();
+    }
+
     @Override
     public void decorate(WorldGenRegion world) {
-        super.decorate(world);
-
         int chunkX = world.getMainChunkX();
         int chunkZ = world.getMainChunkZ();
 
@@ -176,18 +255,24 @@ public class MidnightChunkGenerator extends NoiseChunkGenerator<MidnightChunkGen
         int minZ = chunkZ * 16;
 
         BlockPos origin = new BlockPos(minX, 0, minZ);
-        CavernousBiome cavernousBiome = this.getCavernousBiome(origin.getX() + 8, origin.getZ() + 8);
 
-        SharedSeedRandom random = new SharedSeedRandom();
+        CaveFloorMap.begin(chunkX, chunkZ);
+        try {
+            super.decorate(world);
 
-        long seed = random.setDecorationSeed(world.getSeed(), minX, minZ);
-        for (GenerationStage.Decoration stage : GenerationStage.Decoration.values()) {
-            cavernousBiome.placeFeatures(stage, this, world, seed, random, origin);
+            CavernousBiome cavernousBiome = this.getCavernousBiome(origin.getX() + 8, origin.getZ() + 8);
+
+            SharedSeedRandom random = new SharedSeedRandom();
+
+            long seed = random.setDecorationSeed(world.getSeed(), minX, minZ);
+            for (GenerationStage.Decoration stage : GenerationStage.Decoration.values()) {
+                cavernousBiome.placeFeatures(stage, this, world, seed, random, origin);
+            }
+        } finally {
+            CaveFloorMap.end();
         }
     }
 
-    // TODO: spawning for cavernous biomes
-
     @Override
     public void spawnMobs(WorldGenRegion region) {
         int chunkX = region.getMainChunkX();
@@ -204,17 +289,35 @@ public class MidnightChunkGenerator extends NoiseChunkGenerator<MidnightChunkGen
 
     @Override
     public void spawnMobs(ServerWorld world, boolean spawnHostileMobs, boolean spawnPeacefulMobs) {
-        if (this.world.getGameRules().getBoolean(GameRules.DO_MOB_SPAWNING)) {
-        }
+        this.entitySpawner.spawn(world, spawnHostileMobs, spawnPeacefulMobs);
     }
 
     @Override
     public List<Biome.SpawnListEntry> getPossibleCreatures(EntityClassification classification, BlockPos pos) {
-        if (UndergroundPlacementLevel.INSTANCE.containsY(this.world, pos.getY())) {
-            CavernousBiome biome = this.getCavernousBiome(pos.getX(), pos.getZ());
-            return biome.getSpawnsFor(classification);
+        // these are spawned per layer by the Midnight spawner instead
+        if (MidnightEntitySpawner.handles(classification)) {
+            return Collections.emptyList();
+        }
+
+        SpawnTable table = this.spawnColumns.get().get(pos.getX(), pos.getY(), pos.getZ());
+        return table.get(classification);
+    }
+
+    public SpawnTable getSpawnTable(Biome biome) {
+        SpawnTable table = this.surfaceSpawnTables.get(biome);
+        if (table == null) {
+            // biomes from outside our registries only get their table once they show up
+            table = this.surfaceSpawnTables.computeIfAbsent(biome, SpawnTable::of);
+        }
+        return table;
+    }
+
+    public SpawnTable getSpawnTable(CavernousBiome biome) {
+        SpawnTable table = this.cavernSpawnTables.get(biome);
+        if (table == null) {
+            table = this.cavernSpawnTables.computeIfAbsent(biome, SpawnTable::of);
         }
-        return super.getPossibleCreatures(classification, pos);
+        return table;
     }
 
     @Override
@@ -244,15 +347,78 @@ public class MidnightChunkGenerator extends NoiseChunkGenerator<MidnightChunkGen
 
     protected CavernousBiome getCavernousBiome(IChunk chunk) {
         ChunkPos pos = chunk.getPos();
-        return this.undergroundLayers.block.sample(pos.getXStart(), pos.getZStart());
+        return this.biomeCache.getCavernousBiome(pos.getXStart(), pos.getZStart());
     }
 
     protected CavernousBiome getCavernousBiome(int x, int z) {
-        return this.undergroundLayers.block.sample(x, z);
+        return this.biomeCache.getCavernousBiome(x, z);
     }
 
     protected Biome getSurfaceBiome(int x, int z) {
-        return this.surfaceLayers.block.sample(x, z);
+        return this.biomeCache.getSurfaceBiome(x, z);
+    }
+
+    public MidnightEntitySpawner getEntitySpawner() {
+        return this.entitySpawner;
+    }
+
+    public ChunkBiomeCache getBiomeCache() {
+        return this.biomeCache;
+    }
+
+    public BiomeLayers<Biome> getSurfaceLayers() {
+        return this.surfaceLayers;
+    }
+
+    public BiomeLayers<CavernousBiome> getUndergroundLayers() {
+        return this.undergroundLayers;
+    }
+
+    public void invalidateCaches() {
+        Midnight.LOGGER.debug("Invalidating Midnight biome cache ({} hits, {} misses)", this.biomeCache.getHits(), this.biomeCache.getMisses());
+        this.biomeCache.invalidate();
+        this.carverStartCache.invalidate();
+        this.noiseGenerator.invalidateCaches();
+        this.surfaceLayers.release();
+        this.undergroundLayers.release();
+    }
+
+    /**
+     * Per-thread scratch holding the surface heights and depth noise of every column in the chunk being finished.
+     */
+    private static class SurfaceColumns {
+        final int[] heights = new int[256];
+        final int[] lowestTops = new int[256];
+        final double[] depths = new double[256];
+
+        static int index(int localX, int localZ) {
+            return localX + localZ * 16;
+        }
+
+        void sample(IChunk chunk, INoiseGenerator depthNoise, int minX, int minZ) {
+            this.sampleHeights(chunk);
+
+            for (int localZ = 0; localZ < 16; localZ++) {
+                for (int localX = 0; localX < 16; localX++) {
+                    int globalX = minX + localX;
+                    int globalZ = minZ + localZ;
+                    this.depths[index(localX, localZ)] = depthNoise.noiseAt(globalX * 0.0625, globalZ * 0.0625, 0.0625, localX * 0.0625);
+                }
+            }
+        }
+
+        void sampleHeights(IChunk chunk) {
+            for (int localZ = 0; localZ < 16; localZ++) {
+                for (int localX = 0; localX < 16; localX++) {
+                    int surfaceTop = chunk.getTopBlockY(Heightmap.Type.WORLD_SURFACE_WG, localX, localZ);
+                    int floorTop = chunk.getTopBlockY(Heightmap.Type.OCEAN_FLOOR_WG, localX, localZ);
+
+                    int index = index(localX, localZ);
+                    this.heights[index] = surfaceTop + 1;
+                    this.lowestTops[index] = Math.min(surfaceTop, floorTop);
+                }
+            }
+        }
     }
 
     public static class Config extends GenerationSettings {
@@ -45,9 +45,10 @@ public class MidnightDimension extends Dimension {
     @Override
     public ChunkGenerator<?> createChunkGenerator() {
         long seed = this.world.getSeed();
+        int cacheSize = MidnightConfig.general.biomeLayerCacheSize.get();
 
-        BiomeLayers<Biome> surfaceLayers = BiomeLayerType.SURFACE.make(seed);
-        BiomeLayers<CavernousBiome> undergroundLayers = BiomeLayerType.UNDERGROUND.make(seed);
+        BiomeLayers<Biome> surfaceLayers = BiomeLayerType.SURFACE.make(seed, cacheSize);
+        BiomeLayers<CavernousBiome> undergroundLayers = BiomeLayerType.UNDERGROUND.make(seed, cacheSize);
 
         return new MidnightChunkGenerator(this.world, surfaceLayers, undergroundLayers, MidnightChunkGenerator.Config.createDefault());
     }
@@ -1,293 +1,403 @@
-// TODO: Reevaluate if this is needed
-/*package com.mushroom.midnight.common.world;
+package com.mushroom.midnight.common.world;
 
-import com.mushroom.midnight.common.biome.ConfigurableBiome;
+import com.mushroom.midnight.Midnight;
 import com.mushroom.midnight.common.config.MidnightConfig;
-import com.mushroom.midnight.common.util.WeightedPool;
+import com.mushroom.midnight.common.world.feature.placement.SurfacePlacementLevel;
+import com.mushroom.midnight.common.world.feature.placement.UndergroundPlacementLevel;
+import com.mushroom.midnight.common.world.util.SpawnTable;
 import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.entity.Entity;
 import net.minecraft.entity.EntityClassification;
 import net.minecraft.entity.EntitySpawnPlacementRegistry;
 import net.minecraft.entity.EntityType;
 import net.minecraft.entity.ILivingEntityData;
 import net.minecraft.entity.MobEntity;
 import net.minecraft.entity.SpawnReason;
+import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.util.WeightedRandom;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
-import net.minecraft.util.math.MathHelper;
 import net.minecraft.world.GameRules;
-import net.minecraft.world.IWorldReader;
-import net.minecraft.world.World;
 import net.minecraft.world.biome.Biome;
-import net.minecraft.world.gen.ChunkGenerator;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.ChunkSection;
 import net.minecraft.world.gen.Heightmap;
 import net.minecraft.world.server.ChunkHolder;
 import net.minecraft.world.server.ChunkManager;
 import net.minecraft.world.server.ServerWorld;
+import net.minecraft.world.spawner.WorldEntitySpawner;
+import net.minecraftforge.common.ForgeHooks;
 import net.minecraftforge.event.ForgeEventFactory;
-import net.minecraftforge.eventbus.api.Event;
 
 import javax.annotation.Nullable;
-import java.util.Arrays;
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Random;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 
-import static com.mushroom.midnight.Midnight.MIDNIGHT_MOB;
+/**
+ * Natural spawning for the classifications the Midnight manages itself. The surface and the caverns are spawned as
+ * separate layers, each with its own cap read from the {@link EntityCountIndex}, and entries are picked from the
+ * generator's precomputed {@link SpawnTable}s unless the potential spawns event changed the list. Vanilla spawning is kept away from these classifications by
+ * {@link MidnightChunkGenerator#getPossibleCreatures}.
+ */
+public final class MidnightEntitySpawner {
+    private static final EntityClassification[] CLASSIFICATIONS = new EntityClassification[] {
+            Midnight.MIDNIGHT_MOB, Midnight.MIDNIGHT_AMBIENT, EntityClassification.CREATURE
+    };
+
+    private static final int MOB_COUNT_DIV = 17 * 17;
+    private static final long ANIMAL_SPAWN_INTERVAL = 400;
 
-public final class MidnightEntitySpawner<T extends ConfigurableBiome> {
-    private static final int MOB_COUNT_DIV = (int) Math.pow(17d, 2d);
+    private static final int PACK_COUNT = 3;
+    private static final int PACK_RANGE = 6;
 
-    private static final long ANIMAL_SPAWN_INTERVAL = 400;
+    private static final double MIN_PLAYER_DISTANCE_SQ = 24.0 * 24.0;
+    private static final double MAX_PLAYER_DISTANCE_SQ = 128.0 * 128.0;
 
-    private final Function<BlockPos, T> biomeFunction;
-    private final PlacementLevel placementLevel;
+    private final MidnightChunkGenerator generator;
 
-    private final EntityClassification[] classifications;
+    private final List<Chunk> eligibleChunks = new ArrayList<>();
+    private final List<EntityClassification> activeClassifications = new ArrayList<>();
+    private final SectionReader sectionReader = new SectionReader();
 
-    public MidnightEntitySpawner(
-            Function<BlockPos, T> biomeFunction,
-            PlacementLevel placementLevel,
-            EntityClassification[] classifications
-    ) {
-        this.biomeFunction = biomeFunction;
-        this.placementLevel = placementLevel;
-        this.classifications = classifications;
-    }
+    private ILivingEntityData packData;
 
-    public void spawnAroundPlayer(ServerWorld world, boolean spawnHostiles, boolean spawnPassives) {
-        if (!world.getGameRules().getBoolean(GameRules.DO_MOB_SPAWNING)) return;
-        if (!spawnHostiles && !spawnPassives) return;
+    private final int[] lastAttempts = new int[Layer.values().length];
+    private final int[] lastSuccesses = new int[Layer.values().length];
+    private long totalAttempts;
+    private long totalSuccesses;
 
-        int spawningChunks = world.getChunkProvider().ticketManager.func_219358_b();
+    MidnightEntitySpawner(MidnightChunkGenerator generator) {
+        this.generator = generator;
+    }
 
-        Collection<EntityClassification> validClassifications = Arrays.stream(this.classifications)
-                .filter(classification -> this.shouldSpawnCreatureType(world, spawnHostiles, spawnPassives, classification))
-                .collect(Collectors.toList());
+    public static boolean handles(EntityClassification classification) {
+        for (EntityClassification handled : CLASSIFICATIONS) {
+            if (handled == classification) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-        if (validClassifications.isEmpty()) return;
+    public void spawn(ServerWorld world, boolean spawnHostiles, boolean spawnPassives) {
+        for (Layer layer : Layer.values()) {
+            this.lastAttempts[layer.ordinal()] = 0;
+            this.lastSuccesses[layer.ordinal()] = 0;
+        }
 
-        EntityClassificationCount entityCount = EntityClassificationCount.count(world, validClassifications, entity -> {
-            return this.placementLevel.containsY(world, MathHelper.floor(entity.posY));
-        });
+        if (!world.getGameRules().getBoolean(GameRules.DO_MOB_SPAWNING)) {
+            return;
+        }
 
-        ChunkManager chunkManager = world.getChunkProvider().chunkManager;
-        chunkManager.func_223491_f().forEach(holder -> {
-            ChunkPos chunkPos = holder.getPosition();
-            if (chunkManager.isOutsideSpawningRadius(chunkPos) || !world.getWorldBorder().contains(chunkPos)) {
-                return;
+        EntityCountIndex index = EntityCountIndex.get(world);
+        if (index == null) {
+            return;
+        }
+
+        List<EntityClassification> classifications = this.activeClassifications;
+        classifications.clear();
+        for (EntityClassification classification : CLASSIFICATIONS) {
+            if (this.shouldSpawn(world, classification, spawnHostiles, spawnPassives)) {
+                classifications.add(classification);
             }
+        }
+
+        if (classifications.isEmpty()) {
+            return;
+        }
+
+        List<Chunk> chunks = this.collectEligibleChunks(world);
+        if (chunks.isEmpty()) {
+            return;
+        }
 
-            holder.func_219297_b().getNow(ChunkHolder.UNLOADED_CHUNK).left().ifPresent(chunk -> {
-                for (EntityClassification classification : validClassifications) {
-                    int maxCount = classification.getMaxNumberOfCreature() * spawningChunks / MOB_COUNT_DIV;
-                    if (entityCount.getCount(classification) <= maxCount) {
-                        this.spawnEntitiesInChunk(world, classification, chunkPos);
-                    }
+        int spawningChunks = world.getChunkProvider().ticketManager.func_219358_b();
+
+        for (Layer layer : Layer.values()) {
+            for (EntityClassification classification : classifications) {
+                int maxCount = classification.getMaxNumberOfCreature() * spawningChunks / MOB_COUNT_DIV;
+                int remaining = maxCount - index.getCount(classification, layer.level);
+
+                for (int i = 0; i < chunks.size() && remaining > 0; i++) {
+                    remaining -= this.spawnInChunk(world, chunks.get(i), layer, classification, remaining);
                 }
-            });
-        });
+            }
+        }
+
+        chunks.clear();
+        this.sectionReader.reset();
+        this.packData = null;
+
+        for (Layer layer : Layer.values()) {
+            this.totalAttempts += this.lastAttempts[layer.ordinal()];
+            this.totalSuccesses += this.lastSuccesses[layer.ordinal()];
+        }
     }
 
-    private boolean shouldSpawnCreatureType(World world, boolean spawnHostiles, boolean spawnPassives, EntityClassification classification) {
-        if (classification.getPeacefulCreature() && !spawnPassives) return false;
-        if (!classification.getPeacefulCreature() && spawnHostiles) return false;
+    private boolean shouldSpawn(ServerWorld world, EntityClassification classification, boolean spawnHostiles, boolean spawnPassives) {
+        if (classification.getPeacefulCreature() ? !spawnPassives : !spawnHostiles) {
+            return false;
+        }
 
-        // TODO: redo
-        if (classification == MIDNIGHT_MOB) {
+        if (classification == Midnight.MIDNIGHT_MOB) {
             return world.getGameTime() % MidnightConfig.general.monsterSpawnRate.get() == 0;
         }
 
         return !classification.getAnimal() || world.getGameTime() % ANIMAL_SPAWN_INTERVAL == 0;
     }
 
-    public void populateChunk(World world, int chunkX, int chunkZ, Random random) {
-        int globalX = chunkX << 4;
-        int globalZ = chunkZ << 4;
+    private List<Chunk> collectEligibleChunks(ServerWorld world) {
+        List<Chunk> chunks = this.eligibleChunks;
+        chunks.clear();
 
-        int originX = globalX + 8;
-        int originZ = globalZ + 8;
-
-        BlockPos centerPos = new BlockPos(globalX + 16, 0, globalZ + 16);
-        T biome = this.biomeFunction.apply(centerPos);
-
-        // TODO Spawner
-        SpawnerConfig spawnerConfig = biome.getSpawnerConfig();
-        if (spawnerConfig.isEmpty()) {
-            return;
-        }
-
-        while (random.nextFloat() < spawnerConfig.getSpawnChance()) {
-            WeightedPool<Biome.SpawnListEntry> pool = spawnerConfig.getPool(EntityClassification.CREATURE);
-            Biome.SpawnListEntry entry = pool.pick(world.rand);
-            if (entry == null) {
+        ChunkManager chunkManager = world.getChunkProvider().chunkManager;
+        for (ChunkHolder holder : chunkManager.func_223491_f()) {
+            ChunkPos pos = holder.getPosition();
+            if (chunkManager.isOutsideSpawningRadius(pos) || !world.getWorldBorder().contains(pos)) {
                 continue;
             }
 
-            this.spawnGroupInChunk(world, originX, originZ, random, entry);
+            Chunk chunk = holder.func_219297_b().getNow(ChunkHolder.UNLOADED_CHUNK).left().orElse(null);
+            if (chunk != null) {
+                chunks.add(chunk);
+            }
         }
+
+        // shuffle so that caps filling up early don't always favour the same chunks
+        Collections.shuffle(chunks, world.rand);
+
+        return chunks;
     }
 
-    private void spawnEntitiesInChunk(ServerWorld world, EntityClassification classification, ChunkPos chunkPos) {
-        BlockPos pos = this.getRandomPositionInChunk(world, chunkPos);
-        if (pos == null) return;
+    private int spawnInChunk(ServerWorld world, Chunk chunk, Layer layer, EntityClassification classification, int limit) {
+        Random random = world.rand;
+        ChunkPos chunkPos = chunk.getPos();
 
-        BlockState state = world.getBlockState(pos);
-        if (state.isNormalCube(world, pos)) return;
+        int localX = random.nextInt(16);
+        int localZ = random.nextInt(16);
+        int y = layer.pickY(chunk, localX, localZ, random);
+        if (y < 0) {
+            return 0;
+        }
 
-        this.spawnEntitiesAround(world, pos, classification);
-    }
+        int originX = chunkPos.getXStart() + localX;
+        int originZ = chunkPos.getZStart() + localZ;
 
-    private void spawnEntitiesAround(ServerWorld world, BlockPos pos, EntityClassification classification) {
-        BlockPos.Mutable mutablePos = new BlockPos.Mutable();
+        SectionReader reader = this.sectionReader;
+        reader.moveTo(chunk);
 
-        int spawnedEntities = 0;
+        BlockPos.Mutable pos = new BlockPos.Mutable(originX, y, originZ);
+        if (reader.getBlockState(pos).isNormalCube(world, pos)) {
+            return 0;
+        }
 
-        for (int i = 0; i < 3; i++) {
-            int range = 6;
-            Biome.SpawnListEntry selectedEntry = null;
-            ILivingEntityData livingData = null;
+        SpawnTable table = layer.getSpawnTable(this.generator, originX, originZ);
+        List<Biome.SpawnListEntry> tableSpawns = table.get(classification);
 
-            mutablePos.setPos(pos);
+        // other mods may edit the list through the event, in which case the table's precomputed weights no longer apply
+        List<Biome.SpawnListEntry> spawns = ForgeEventFactory.getPotentialSpawns(world, classification, pos, tableSpawns);
+        boolean useTable = spawns.equals(tableSpawns);
+        if (useTable ? table.isEmpty(classification) : WeightedRandom.getTotalWeight(spawns) <= 0) {
+            return 0;
+        }
 
-            int spawnGroupSize = MathHelper.ceil(Math.random() * 4.0);
-            for (int groupIndex = 0; groupIndex < spawnGroupSize; groupIndex++) {
-                mutablePos.setPos(
-                        mutablePos.getX() + world.rand.nextInt(range) - world.rand.nextInt(range),
-                        mutablePos.getY() + world.rand.nextInt(1) - world.rand.nextInt(1),
-                        mutablePos.getZ() + world.rand.nextInt(range) - world.rand.nextInt(range)
-                );
+        int spawned = 0;
+        for (int pack = 0; pack < PACK_COUNT; pack++) {
+            Biome.SpawnListEntry entry = useTable ? table.pick(classification, random) : WeightedRandom.getRandomItem(random, spawns);
+            if (entry == null) {
+                break;
+            }
+
+            int x = originX;
+            int z = originZ;
+            int groupSize = entry.minGroupCount + random.nextInt(Math.max(entry.maxGroupCount - entry.minGroupCount, 0) + 1);
+
+            this.packData = null;
+            int packSpawned = 0;
+
+            for (int i = 0; i < groupSize; i++) {
+                x += random.nextInt(PACK_RANGE) - random.nextInt(PACK_RANGE);
+                z += random.nextInt(PACK_RANGE) - random.nextInt(PACK_RANGE);
+                pos.setPos(x, y, z);
+
+                this.lastAttempts[layer.ordinal()]++;
 
-                if (world.isPlayerWithin(mutablePos.getX() + 0.5, mutablePos.getY(), mutablePos.getZ() + 0.5, 24)) {
+                MobEntity mob = this.trySpawn(world, reader, pos, entry);
+                if (mob == null) {
                     continue;
                 }
 
-                if (selectedEntry == null) {
-                    T biome = this.biomeFunction.apply(pos);
-                    WeightedPool<Biome.SpawnListEntry> pool = biome. ().getPool(classification);
+                this.lastSuccesses[layer.ordinal()]++;
 
-                    selectedEntry = pool.pick(world.rand);
-                    if (selectedEntry == null) {
-                        break;
-                    }
-                }
+                spawned++;
+                packSpawned++;
 
-                if (this.canSpawnAt(world, classification, mutablePos, selectedEntry)) {
-                    MobEntity creature = this.createEntity(world, mutablePos, selectedEntry);
-
-                    float spawnX = mutablePos.getX() + 0.5F;
-                    float spawnY = mutablePos.getY();
-                    float spawnZ = mutablePos.getZ() + 0.5F;
-
-                    Event.Result spawnResult = ForgeEventFactory.canEntitySpawn(creature, world, spawnX, spawnY, spawnZ, null);
-                    if (spawnResult != Event.Result.ALLOW && spawnResult != Event.Result.DEFAULT) {
-                        continue;
-                    }
-
-                    if (creature.canSpawn(world, SpawnReason.NATURAL) && creature.isNotColliding(world)) {
-                        if (!ForgeEventFactory.doSpecialSpawn(creature, world, spawnX, spawnY, spawnZ, null)) {
-                            livingData = creature.onInitialSpawn(world, world.getDifficultyForLocation(new BlockPos(creature)), SpawnReason.NATURAL, livingData, null);
-                        }
-
-                        if (creature.isNotColliding(world)) {
-                            spawnedEntities++;
-                            world.addEntity(creature);
-                        } else {
-                            creature.remove();
-                        }
-
-                        if (spawnedEntities >= ForgeEventFactory.getMaxSpawnPackSize(creature)) {
-                            return;
-                        }
-                    }
+                if (spawned >= limit) {
+                    return spawned;
+                }
+                if (packSpawned >= ForgeEventFactory.getMaxSpawnPackSize(mob)) {
+                    break;
                 }
             }
         }
+
+        return spawned;
     }
 
     @Nullable
-    private static Biome.SpawnListEntry pickSpawnEntry(ChunkGenerator<?> generator, EntityClassification classification, Random random, BlockPos pos, World world) {
-        List<Biome.SpawnListEntry> possibleSpawns = generator.getPossibleCreatures(classification, pos);
-        possibleSpawns = ForgeEventFactory.getPotentialSpawns(world, classification, pos, possibleSpawns);
+    private MobEntity trySpawn(ServerWorld world, SectionReader reader, BlockPos.Mutable pos, Biome.SpawnListEntry entry) {
+        // cheap block checks through the cached section first, before any entity is constructed
+        if (!reader.isSpawnableSpace(world, pos)) {
+            return null;
+        }
 
-        if (possibleSpawns == null || possibleSpawns.isEmpty()) return null;
+        double spawnX = pos.getX() + 0.5;
+        double spawnY = pos.getY();
+        double spawnZ = pos.getZ() + 0.5;
 
-        return WeightedRandom.getRandomItem(random, possibleSpawns);
-    }
+        PlayerEntity player = world.getClosestPlayer(spawnX, spawnY, spawnZ, -1.0, false);
+        if (player == null) {
+            return null;
+        }
 
-    private void spawnGroupInChunk(World world, int originX, int originZ, Random random, Biome.SpawnListEntry spawnEntry) {
-        int groupSize = spawnEntry.minGroupCount + random.nextInt(spawnEntry.maxGroupCount - spawnEntry.minGroupCount + 1);
-        int centerX = originX + random.nextInt(16);
-        int centerZ = originZ + random.nextInt(16);
+        double distanceSq = player.getDistanceSq(spawnX, spawnY, spawnZ);
+        if (distanceSq <= MIN_PLAYER_DISTANCE_SQ || distanceSq > MAX_PLAYER_DISTANCE_SQ) {
+            return null;
+        }
 
-        int x = centerX;
-        int z = centerZ;
+        EntityType<?> type = entry.entityType;
+        EntitySpawnPlacementRegistry.PlacementType placementType = EntitySpawnPlacementRegistry.getPlacementType(type);
+        if (!WorldEntitySpawner.canCreatureTypeSpawnAtLocation(placementType, world, pos, type)) {
+            return null;
+        }
 
-        ILivingEntityData livingData = null;
+        if (!EntitySpawnPlacementRegistry.func_223515_a(type, world, SpawnReason.NATURAL, pos, world.rand)) {
+            return null;
+        }
 
-        for (int i = 0; i < groupSize; i++) {
-            for (int attempt = 0; attempt < 4; attempt++) {
-                boolean spawnedEntity = false;
+        Entity entity = type.create(world);
+        if (!(entity instanceof MobEntity)) {
+            if (entity != null) {
+                entity.remove();
+            }
+            return null;
+        }
 
-                BlockPos pos = this.placementLevel.getSurfacePos(world, Heightmap.Type.MOTION_BLOCKING, new BlockPos(x, 0, z));
-                EntityType<?> entityType = spawnEntry.entityType;
-                if (canCreatureTypeSpawnAtLocation(EntitySpawnPlacementRegistry.getPlacementType(entityType), world, pos, entityType)) {
-                    MobEntity creature = this.createEntity(world, pos, spawnEntry);
-                    if (ForgeEventFactory.canEntitySpawn(creature, world, x + 0.5F, pos.getY(), z + 0.5F, null) == Event.Result.DENY) {
-                        creature.remove();
-                        continue;
-                    }
+        MobEntity mob = (MobEntity) entity;
+        mob.setLocationAndAngles(spawnX, spawnY, spawnZ, world.rand.nextFloat() * 360.0F, 0.0F);
 
-                    world.addEntity(creature);
-                    livingData = creature.onInitialSpawn(world, world.getDifficultyForLocation(new BlockPos(creature)), SpawnReason.NATURAL, livingData, null);
-                    spawnedEntity = true;
-                }
+        int canSpawn = ForgeHooks.canEntitySpawn(mob, world, spawnX, spawnY, spawnZ, null, SpawnReason.NATURAL);
+        if (canSpawn == -1 || (canSpawn == 0 && !(mob.canSpawn(world, SpawnReason.NATURAL) && mob.isNotColliding(world)))) {
+            mob.remove();
+            return null;
+        }
 
-                x += random.nextInt(5) - random.nextInt(5);
-                z += random.nextInt(5) - random.nextInt(5);
+        if (!ForgeEventFactory.doSpecialSpawn(mob, world, (float) spawnX, (float) spawnY, (float) spawnZ, null, SpawnReason.NATURAL)) {
+            this.packData = mob.onInitialSpawn(world, world.getDifficultyForLocation(new BlockPos(mob)), SpawnReason.NATURAL, this.packData, null);
+        }
 
-                while (x < originX || x >= originX + 16 || z < originZ || z >= originZ + 16) {
-                    x = centerX + random.nextInt(5) - random.nextInt(5);
-                    z = centerZ + random.nextInt(5) - random.nextInt(5);
-                }
+        world.addEntity(mob);
+        return mob;
+    }
 
-                if (spawnedEntity) {
-                    break;
-                }
-            }
+    public String describe() {
+        int attempts = 0;
+        int successes = 0;
+        for (Layer layer : Layer.values()) {
+            attempts += this.lastAttempts[layer.ordinal()];
+            successes += this.lastSuccesses[layer.ordinal()];
         }
-    }
 
-    private MobEntity createEntity(World world, BlockPos pos, Biome.SpawnListEntry selectedEntry) {
-        MobEntity entity = (MobEntity) selectedEntry.entityType.create(world);
-        float yaw = world.rand.nextFloat() * 360.0F;
-        entity.setLocationAndAngles(pos.getX() + 0.5, pos.getY(), pos.getZ() + 0.5, yaw, 0.0F);
-        return entity;
+        return String.format("Midnight spawning: last tick %d/%d spawned/attempted (surface %d/%d, cavern %d/%d), %d/%d in total",
+                successes, attempts,
+                this.lastSuccesses[Layer.SURFACE.ordinal()], this.lastAttempts[Layer.SURFACE.ordinal()],
+                this.lastSuccesses[Layer.CAVERN.ordinal()], this.lastAttempts[Layer.CAVERN.ordinal()],
+                this.totalSuccesses, this.totalAttempts
+        );
     }
 
-    private BlockPos getRandomPositionInChunk(World world, ChunkPos chunkPos) {
-        int x = chunkPos.getXStart() + world.rand.nextInt(16);
-        int z = chunkPos.getZStart() + world.rand.nextInt(16);
+    private enum Layer {
+        SURFACE(SurfacePlacementLevel.INSTANCE) {
+            @Override
+            int pickY(Chunk chunk, int localX, int localZ, Random random) {
+                int minY = MidnightChunkGenerator.SURFACE_CAVE_BOUNDARY + 1;
+                int maxY = chunk.getTopBlockY(Heightmap.Type.WORLD_SURFACE, localX, localZ) + 1;
+                return maxY > minY ? minY + random.nextInt(maxY - minY + 1) : -1;
+            }
 
-        BlockPos pos = new BlockPos(x, 0, z);
-        BlockPos surfacePos = this.placementLevel.getSurfacePos(world, Heightmap.Type.MOTION_BLOCKING, pos);
+            @Override
+            SpawnTable getSpawnTable(MidnightChunkGenerator generator, int x, int z) {
+                return generator.getSpawnTable(generator.getSurfaceBiome(x, z));
+            }
+        },
+        CAVERN(UndergroundPlacementLevel.INSTANCE) {
+            @Override
+            int pickY(Chunk chunk, int localX, int localZ, Random random) {
+                return 1 + random.nextInt(MidnightChunkGenerator.SURFACE_CAVE_BOUNDARY - 1);
+            }
+
+            @Override
+            SpawnTable getSpawnTable(MidnightChunkGenerator generator, int x, int z) {
+                return generator.getSpawnTable(generator.getCavernousBiome(x, z));
+            }
+        };
 
-        int surfaceY = MathHelper.roundUp(surfacePos.getY() + 1, 16);
+        final PlacementLevel level;
+
+        Layer(PlacementLevel level) {
+            this.level = level;
+        }
 
-        int y = world.rand.nextInt(surfaceY);
-        if (!this.placementLevel.containsY(world, y)) return null;
+        /**
+         * @return a random y within this layer for the given column, or -1 if the layer is absent there
+         */
+        abstract int pickY(Chunk chunk, int localX, int localZ, Random random);
 
-        return new BlockPos(x, y, z);
+        abstract SpawnTable getSpawnTable(MidnightChunkGenerator generator, int x, int z);
     }
 
-    private static boolean canCreatureTypeSpawnAtLocation(EntitySpawnPlacementRegistry.PlacementType placeType, IWorldReader world, BlockPos pos, @Nullable EntityType<?> entityType) {
-        if (placeType == EntitySpawnPlacementRegistry.PlacementType.NO_RESTRICTIONS) {
-            return true;
-        } else if (entityType != null && world.getWorldBorder().contains(pos)) {
-            return placeType.canSpawnAt(world, pos, entityType);
+    /**
+     * Reads block states of the chunk a pack is spawned in straight from its sections, falling back to the world for
+     * positions that wander outside of it.
+     */
+    private static class SectionReader {
+        private Chunk chunk;
+        private int minX;
+        private int minZ;
+
+        void moveTo(Chunk chunk) {
+            this.chunk = chunk;
+            this.minX = chunk.getPos().getXStart();
+            this.minZ = chunk.getPos().getZStart();
+        }
+
+        void reset() {
+            this.chunk = null;
+        }
+
+        BlockState getBlockState(BlockPos pos) {
+            int y = pos.getY();
+            if (y < 0 || y >= 256) {
+                return Blocks.VOID_AIR.getDefaultState();
+            }
+
+            ChunkSection section = this.chunk.getSections()[y >> 4];
+            if (ChunkSection.isEmpty(section)) {
+                return Blocks.AIR.getDefaultState();
+            }
+            return section.getBlockState(pos.getX() & 15, y & 15, pos.getZ() & 15);
+        }
+
+        boolean isSpawnableSpace(ServerWorld world, BlockPos.Mutable pos) {
+            int localX = pos.getX() - this.minX;
+            int localZ = pos.getZ() - this.minZ;
+            if (localX < 0 || localZ < 0 || localX >= 16 || localZ >= 16) {
+                return !world.getBlockState(pos).isNormalCube(world, pos);
+            }
+            return !this.getBlockState(pos).isNormalCube(world, pos);
         }
-        return false;
     }
-}*/
+}
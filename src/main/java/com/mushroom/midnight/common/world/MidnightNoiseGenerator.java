@@ -3,22 +3,22 @@ package com.mushroom.midnight.common.world;
 import com.mushroom.midnight.common.biome.BiomeLayers;
 import com.mushroom.midnight.common.biome.cavern.CavernousBiome;
 import com.mushroom.midnight.common.biome.surface.SurfaceBiome;
-import com.mushroom.midnight.common.util.Curve;
-import com.mushroom.midnight.common.util.RegionInterpolator;
 import com.mushroom.midnight.common.world.noise.OctaveNoiseSampler;
 import com.mushroom.midnight.common.world.noise.PerlinNoiseSampler;
 import com.mushroom.midnight.common.world.util.BiomeWeightTable;
+import com.mushroom.midnight.common.world.util.DensityProfile;
+import com.mushroom.midnight.common.world.util.NoiseFieldCache;
 import net.minecraft.util.math.ChunkPos;
 import net.minecraft.util.math.MathHelper;
 import net.minecraft.world.biome.Biome;
 
+import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.mushroom.midnight.common.world.MidnightChunkGenerator.*;
 
 public class MidnightNoiseGenerator {
-    private static final BiomeProperties BIOME_PROPERTIES = new BiomeProperties();
-
     public static final int HORIZONTAL_GRANULARITY = 4;
     public static final int VERTICAL_GRANULARITY = 4;
 
@@ -32,6 +32,15 @@ public class MidnightNoiseGenerator {
 
     private static final int NOISE_SURFACE_CAVE_BOUNDARY = SURFACE_CAVE_BOUNDARY / VERTICAL_GRANULARITY;
 
+    private static final int FIELD_SURFACE = 0;
+    private static final int FIELD_CEILING = 1;
+    private static final int FIELD_RIDGE = 2;
+    private static final int FIELD_PILLAR = 3;
+    private static final int FIELD_COUNT = 4;
+
+    private static final int FIELD_AREA = NOISE_WIDTH * NOISE_WIDTH;
+    private static final int FIELD_CACHE_CAPACITY = 4096;
+
     private final OctaveNoiseSampler worldNoise;
     private final OctaveNoiseSampler surfaceNoise;
     private final OctaveNoiseSampler ceilingNoise;
@@ -40,6 +49,11 @@ public class MidnightNoiseGenerator {
 
     private final BiomeWeightTable weightTable;
 
+    private final NoiseFieldCache fieldCache;
+
+    private final Map<Biome, SurfaceParameters> surfaceParameters = new ConcurrentHashMap<>();
+    private final Map<CavernousBiome, CavernParameters> cavernParameters = new ConcurrentHashMap<>();
+
     public MidnightNoiseGenerator(Random random) {
         this.worldNoise = OctaveNoiseSampler.perlin(random, 3);
         this.worldNoise.setAmplitude(5.0);
@@ -61,6 +75,8 @@ public class MidnightNoiseGenerator {
         this.ridgedSurfaceNoise.setFrequency(0.08);
 
         this.weightTable = new BiomeWeightTable(BIOME_WEIGHT_RADIUS);
+
+        this.fieldCache = new NoiseFieldCache(NOISE_WIDTH, FIELD_COUNT, this::sampleFields, FIELD_CACHE_CAPACITY);
     }
 
     public double[] sampleChunkNoise(ChunkPos chunkPos, BiomeLayers<Biome> surfaceLayers, BiomeLayers<CavernousBiome> undergroundLayers) {
@@ -69,11 +85,24 @@ public class MidnightNoiseGenerator {
 
         double[] noise = new double[BUFFER_HEIGHT * BUFFER_WIDTH * BUFFER_WIDTH];
         double[] column = new double[BUFFER_HEIGHT];
+        ColumnScratch scratch = new ColumnScratch();
+        BiomeGrid grid = this.sampleBiomeGrid(surfaceLayers, undergroundLayers, globalX, globalZ, BUFFER_WIDTH);
+
+        // the last row and column of the buffer belong to the neighbouring regions
+        double[][] regions = new double[][] {
+                this.fieldCache.get(chunkPos.x, chunkPos.z),
+                this.fieldCache.get(chunkPos.x + 1, chunkPos.z),
+                this.fieldCache.get(chunkPos.x, chunkPos.z + 1),
+                this.fieldCache.get(chunkPos.x + 1, chunkPos.z + 1)
+        };
 
         int index = 0;
         for (int localZ = 0; localZ < BUFFER_WIDTH; localZ++) {
             for (int localX = 0; localX < BUFFER_WIDTH; localX++) {
-                this.populateColumnNoise(column, globalX + localX, globalZ + localZ, surfaceLayers, undergroundLayers);
+                int region = (localX >= NOISE_WIDTH ? 1 : 0) | (localZ >= NOISE_WIDTH ? 2 : 0);
+                scratch.loadFields(regions[region], (localX % NOISE_WIDTH) + (localZ % NOISE_WIDTH) * NOISE_WIDTH);
+
+                this.populateColumnNoise(column, globalX + localX, globalZ + localZ, grid, scratch);
 
                 System.arraycopy(column, 0, noise, index, column.length);
                 index += BUFFER_HEIGHT;
@@ -84,7 +113,41 @@ public class MidnightNoiseGenerator {
     }
 
     public void populateColumnNoise(double[] noise, int x, int z, BiomeLayers<Biome> surfaceLayers, BiomeLayers<CavernousBiome> undergroundLayers) {
-        BiomeProperties properties = this.computeBiomeProperties(surfaceLayers, undergroundLayers, x, z);
+        BiomeGrid grid = this.sampleBiomeGrid(surfaceLayers, undergroundLayers, x, z, 1);
+
+        ColumnScratch scratch = new ColumnScratch();
+        double[] fields = this.fieldCache.get(Math.floorDiv(x, NOISE_WIDTH), Math.floorDiv(z, NOISE_WIDTH));
+        scratch.loadFields(fields, Math.floorMod(x, NOISE_WIDTH) + Math.floorMod(z, NOISE_WIDTH) * NOISE_WIDTH);
+
+        this.populateColumnNoise(noise, x, z, grid, scratch);
+    }
+
+    private void sampleFields(int minX, int minZ, int size, double[] fields) {
+        int area = size * size;
+        for (int localZ = 0; localZ < size; localZ++) {
+            for (int localX = 0; localX < size; localX++) {
+                int x = minX + localX;
+                int z = minZ + localZ;
+                int index = localX + localZ * size;
+
+                double pillar = (this.pillarNoise.get(x, z) + 1.0) * 0.5;
+                pillar *= pillar;
+
+                fields[FIELD_SURFACE * area + index] = (this.surfaceNoise.get(x, z) + 1.5) / 3.0;
+                fields[FIELD_CEILING * area + index] = (this.ceilingNoise.get(x, z) + 1.5) / 3.0;
+                fields[FIELD_RIDGE * area + index] = (this.ridgedSurfaceNoise.get(x, z) + 1.5) / 3.0;
+                fields[FIELD_PILLAR * area + index] = pillar * pillar;
+            }
+        }
+    }
+
+    public void invalidateCaches() {
+        this.fieldCache.invalidate();
+    }
+
+    private void populateColumnNoise(double[] noise, int x, int z, BiomeGrid grid, ColumnScratch scratch) {
+        BiomeProperties properties = scratch.properties;
+        this.computeBiomeProperties(properties, grid, x, z);
 
         float heightOrigin = (float) SURFACE_LEVEL / VERTICAL_GRANULARITY;
         float maxHeight = 256.0F / VERTICAL_GRANULARITY;
@@ -103,14 +166,14 @@ public class MidnightNoiseGenerator {
         float heightVariation = properties.heightScale * 0.9F + 0.1F;
         float cavernHeightVariation = properties.cavernHeightScale * 0.9F + 0.1F;
 
-        double perlinSurfaceNoise = (this.surfaceNoise.get(x, z) + 1.5) / 3.0;
-        double perlinCeilingNoise = (this.ceilingNoise.get(x, z) + 1.5) / 3.0;
-        double ridgedSurfaceNoise = (this.ridgedSurfaceNoise.get(x, z) + 1.5) / 3.0;
+        double perlinSurfaceNoise = scratch.surfaceNoise;
+        double perlinCeilingNoise = scratch.ceilingNoise;
+        double ridgedSurfaceNoise = scratch.ridgedSurfaceNoise;
 
-        double pillarDensity = Math.pow((this.pillarNoise.get(x, z) + 1.0) * 0.5, 4.0);
+        double pillarDensity = scratch.pillarDensity;
 
-        double surfaceHeightVariationScale = Math.pow(heightVariation * 2.0, 3.0);
-        double cavernHeightVariationScale = Math.pow(cavernHeightVariation * 2.0, 3.0);
+        double surfaceHeightVariationScale = cube(heightVariation * 2.0);
+        double cavernHeightVariationScale = cube(cavernHeightVariation * 2.0);
 
         double surfaceHeight = perlinSurfaceNoise + (ridgedSurfaceNoise - perlinSurfaceNoise) * properties.ridgeWeight;
         surfaceHeight = (surfaceHeight * heightVariation * 2.0) + baseHeight;
@@ -119,14 +182,18 @@ public class MidnightNoiseGenerator {
         double cavernRegionEnd = cavernCeilingHeight + (perlinCeilingNoise * 0.15);
 
         double curveRange = 8.0 / VERTICAL_GRANULARITY;
-        RegionInterpolator.Region[] regions = new RegionInterpolator.Region[] {
-                RegionInterpolator.region(0.0, cavernRegionStart, 2.5, curveRange),
-                RegionInterpolator.region(cavernRegionStart, cavernRegionEnd, properties.cavernDensity, curveRange),
-                RegionInterpolator.region(cavernRegionEnd, surfaceHeight, 3.5, curveRange),
-                RegionInterpolator.region(surfaceHeight, maxHeight, surfaceHeight - maxHeight, maxHeight - surfaceHeight)
-        };
 
-        RegionInterpolator interpolator = new RegionInterpolator(regions, Curve.linear());
+        DensityProfile profile = scratch.profile;
+        profile.clear();
+        profile.add(0.0, cavernRegionStart, 2.5, curveRange);
+        profile.add(cavernRegionStart, cavernRegionEnd, properties.cavernDensity, curveRange);
+        profile.add(cavernRegionEnd, surfaceHeight, 3.5, curveRange);
+        profile.add(surfaceHeight, maxHeight, surfaceHeight - maxHeight, maxHeight - surfaceHeight);
+
+        double[] densityBiases = scratch.densityBiases;
+        profile.evaluate(densityBiases, BUFFER_HEIGHT);
+
+        this.worldNoise.getColumn(noise, x, z, 0, BUFFER_HEIGHT);
 
         for (int y = 0; y < NOISE_HEIGHT + 1; y++) {
             if (y == NOISE_SURFACE_CAVE_BOUNDARY) {
@@ -137,14 +204,14 @@ public class MidnightNoiseGenerator {
             double surfaceWeight = MathHelper.clamp((y - cavernRegionEnd) / (surfaceHeight - cavernRegionEnd), 0.0, 1.0);
             double cavernWeight = 1.0 - surfaceWeight;
 
-            double densityBias = interpolator.get(y);
+            double densityBias = densityBiases[y];
 
             double cavernCenterDistance = Math.min(Math.abs(y - cavernCenter) / cavernHeight, 1.0);
-            double pillarFalloff = Math.max(1.0 - Math.pow(cavernCenterDistance, 2.0), 0.0) * 0.125;
+            double pillarFalloff = Math.max(1.0 - cavernCenterDistance * cavernCenterDistance, 0.0) * 0.125;
 
             densityBias += (Math.max(pillarDensity * 3.5 - pillarFalloff, 0.0) * cavernWeight * 5.0) * properties.pillarWeight;
 
-            double sampledNoise = this.worldNoise.get(x, y, z);
+            double sampledNoise = noise[y];
 
             double surfaceNoiseDensity = sampledNoise * surfaceHeightVariationScale;
             double cavernNoiseDensity = sampledNoise * cavernHeightVariationScale;
@@ -154,58 +221,154 @@ public class MidnightNoiseGenerator {
         }
     }
 
-    private BiomeProperties computeBiomeProperties(BiomeLayers<Biome> surfaceLayers, BiomeLayers<CavernousBiome> undergroundLayers, int x, int z) {
-        BiomeProperties properties = BIOME_PROPERTIES;
-        properties.zero();
+    private static double cube(double value) {
+        return value * value * value;
+    }
 
-        float totalWeight = 0.0F;
+    private BiomeGrid sampleBiomeGrid(BiomeLayers<Biome> surfaceLayers, BiomeLayers<CavernousBiome> undergroundLayers, int x, int z, int width) {
+        int originX = x - BIOME_WEIGHT_RADIUS;
+        int originZ = z - BIOME_WEIGHT_RADIUS;
+        int size = width + BIOME_WEIGHT_RADIUS * 2;
 
-        Biome originBiome = surfaceLayers.noise.sample(x, z);
-        for (int neighborZ = -BIOME_WEIGHT_RADIUS; neighborZ <= BIOME_WEIGHT_RADIUS; neighborZ++) {
-            for (int neighborX = -BIOME_WEIGHT_RADIUS; neighborX <= BIOME_WEIGHT_RADIUS; neighborX++) {
-                Biome neighborBiome = surfaceLayers.noise.sample(x + neighborX, z + neighborZ);
-                CavernousBiome neighborCavernBiome = undergroundLayers.noise.sample(x + neighborX, z + neighborZ);
+        Biome[] surfaceBiomes = surfaceLayers.noise.sample(originX, originZ, size, size);
+        CavernousBiome[] cavernBiomes = undergroundLayers.noise.sample(originX, originZ, size, size);
 
-                float nDepth = neighborBiome.getDepth();
-                float nScale = neighborBiome.getScale();
+        BiomeGrid grid = new BiomeGrid(originX, originZ, size);
+        for (int i = 0; i < grid.surface.length; i++) {
+            grid.surface[i] = this.getSurfaceParameters(surfaceBiomes[i]);
+            grid.cavern[i] = this.getCavernParameters(cavernBiomes[i]);
+        }
 
-                float nRidgeWeight = 0.0F;
-                float nDensityScale = 1.0F;
+        return grid;
+    }
 
-                if (neighborBiome instanceof SurfaceBiome) {
-                    SurfaceBiome surfaceBiome = (SurfaceBiome) neighborBiome;
-                    nRidgeWeight = surfaceBiome.getRidgeWeight();
-                    nDensityScale = surfaceBiome.getDensityScale();
-                }
+    private SurfaceParameters getSurfaceParameters(Biome biome) {
+        SurfaceParameters parameters = this.surfaceParameters.get(biome);
+        if (parameters == null) {
+            parameters = this.surfaceParameters.computeIfAbsent(biome, SurfaceParameters::new);
+        }
+        return parameters;
+    }
+
+    private CavernParameters getCavernParameters(CavernousBiome biome) {
+        CavernParameters parameters = this.cavernParameters.get(biome);
+        if (parameters == null) {
+            parameters = this.cavernParameters.computeIfAbsent(biome, CavernParameters::new);
+        }
+        return parameters;
+    }
+
+    private void computeBiomeProperties(BiomeProperties properties, BiomeGrid grid, int x, int z) {
+        properties.zero();
 
-                float nCavernFloorHeight = neighborCavernBiome.getFloorHeight();
-                float nCavernCeilingHeight = neighborCavernBiome.getCeilingHeight();
-                float nCavernDensity = neighborCavernBiome.getCavernDensity();
-                float nCavernHeightScale = neighborCavernBiome.getHeightScale();
-                float nCavernPillarWeight = neighborCavernBiome.getPillarWeight();
+        float totalWeight = 0.0F;
+
+        int centerX = x - grid.originX;
+        int centerZ = z - grid.originZ;
 
-                float biomeWeight = this.weightTable.get(neighborX, neighborZ) / (nDepth + 2.0F);
-                if (neighborBiome.getDepth() > originBiome.getDepth()) {
+        SurfaceParameters origin = grid.surface[grid.index(centerX, centerZ)];
+        for (int neighborZ = -BIOME_WEIGHT_RADIUS; neighborZ <= BIOME_WEIGHT_RADIUS; neighborZ++) {
+            for (int neighborX = -BIOME_WEIGHT_RADIUS; neighborX <= BIOME_WEIGHT_RADIUS; neighborX++) {
+                int index = grid.index(centerX + neighborX, centerZ + neighborZ);
+                SurfaceParameters surface = grid.surface[index];
+                CavernParameters cavern = grid.cavern[index];
+
+                float biomeWeight = this.weightTable.get(neighborX, neighborZ) / (surface.depth + 2.0F);
+                if (surface.depth > origin.depth) {
                     biomeWeight *= 2.0F;
                 }
 
-                properties.heightScale += nScale * biomeWeight;
-                properties.heightDepth += nDepth * biomeWeight;
-                properties.ridgeWeight += nRidgeWeight * biomeWeight;
-                properties.densityScale += nDensityScale * biomeWeight;
-                properties.cavernFloorHeight += nCavernFloorHeight * biomeWeight;
-                properties.cavernCeilingHeight += nCavernCeilingHeight * biomeWeight;
-                properties.cavernDensity += nCavernDensity * biomeWeight;
-                properties.cavernHeightScale += nCavernHeightScale * biomeWeight;
-                properties.pillarWeight += nCavernPillarWeight * biomeWeight;
+                properties.heightScale += surface.scale * biomeWeight;
+                properties.heightDepth += surface.depth * biomeWeight;
+                properties.ridgeWeight += surface.ridgeWeight * biomeWeight;
+                properties.densityScale += surface.densityScale * biomeWeight;
+                properties.cavernFloorHeight += cavern.floorHeight * biomeWeight;
+                properties.cavernCeilingHeight += cavern.ceilingHeight * biomeWeight;
+                properties.cavernDensity += cavern.density * biomeWeight;
+                properties.cavernHeightScale += cavern.heightScale * biomeWeight;
+                properties.pillarWeight += cavern.pillarWeight * biomeWeight;
 
                 totalWeight += biomeWeight;
             }
         }
 
         properties.normalize(totalWeight);
+    }
+
+    private static class BiomeGrid {
+        final int originX;
+        final int originZ;
+        final int size;
 
-        return properties;
+        final SurfaceParameters[] surface;
+        final CavernParameters[] cavern;
+
+        BiomeGrid(int originX, int originZ, int size) {
+            this.originX = originX;
+            this.originZ = originZ;
+            this.size = size;
+            this.surface = new SurfaceParameters[size * size];
+            this.cavern = new CavernParameters[size * size];
+        }
+
+        int index(int localX, int localZ) {
+            return localX + localZ * this.size;
+        }
+    }
+
+    private static class SurfaceParameters {
+        final float depth;
+        final float scale;
+        final float ridgeWeight;
+        final float densityScale;
+
+        SurfaceParameters(Biome biome) {
+            this.depth = biome.getDepth();
+            this.scale = biome.getScale();
+
+            if (biome instanceof SurfaceBiome) {
+                SurfaceBiome surfaceBiome = (SurfaceBiome) biome;
+                this.ridgeWeight = surfaceBiome.getRidgeWeight();
+                this.densityScale = surfaceBiome.getDensityScale();
+            } else {
+                this.ridgeWeight = 0.0F;
+                this.densityScale = 1.0F;
+            }
+        }
+    }
+
+    private static class CavernParameters {
+        final float floorHeight;
+        final float ceilingHeight;
+        final float density;
+        final float heightScale;
+        final float pillarWeight;
+
+        CavernParameters(CavernousBiome biome) {
+            this.floorHeight = biome.getFloorHeight();
+            this.ceilingHeight = biome.getCeilingHeight();
+            this.density = biome.getCavernDensity();
+            this.heightScale = biome.getHeightScale();
+            this.pillarWeight = biome.getPillarWeight();
+        }
+    }
+
+    private static class ColumnScratch {
+        final BiomeProperties properties = new BiomeProperties();
+        final DensityProfile profile = new DensityProfile(4);
+        final double[] densityBiases = new double[BUFFER_HEIGHT];
+
+        double surfaceNoise;
+        double ceilingNoise;
+        double ridgedSurfaceNoise;
+        double pillarDensity;
+
+        void loadFields(double[] fields, int index) {
+            this.surfaceNoise = fields[FIELD_SURFACE * FIELD_AREA + index];
+            this.ceilingNoise = fields[FIELD_CEILING * FIELD_AREA + index];
+            this.ridgedSurfaceNoise = fields[FIELD_RIDGE * FIELD_AREA + index];
+            this.pillarDensity = fields[FIELD_PILLAR * FIELD_AREA + index];
+        }
     }
 
     private static class BiomeProperties {
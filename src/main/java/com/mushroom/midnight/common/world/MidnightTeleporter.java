@@ -1,49 +1,87 @@
 package com.mushroom.midnight.common.world;
 
+import com.mojang.datafixers.util.Either;
+import com.mushroom.midnight.Midnight;
 import com.mushroom.midnight.common.registry.MidnightBlocks;
 import com.mushroom.midnight.common.registry.MidnightDimensions;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.player.ServerPlayerEntity;
 import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.Util;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
 import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.chunk.ChunkStatus;
 import net.minecraft.world.chunk.IChunk;
 import net.minecraft.world.dimension.DimensionType;
 import net.minecraft.world.gen.Heightmap;
+import net.minecraft.world.server.ChunkHolder;
+import net.minecraft.world.server.ServerChunkProvider;
 import net.minecraft.world.server.ServerWorld;
+import net.minecraft.world.server.TicketType;
 import net.minecraftforge.fml.LogicalSide;
 import net.minecraftforge.fml.LogicalSidedProvider;
 
+import javax.annotation.Nullable;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
 public class MidnightTeleporter {
     public static final MidnightTeleporter INSTANCE = new MidnightTeleporter();
 
+    private static final long TIMEOUT = 30 * 1000;
+
+    // the lifespan releases tickets of pending teleports that are dropped without completing, e.g. when a player logs out
+    private static final TicketType<ChunkPos> TICKET = TicketType.create("midnight_rift", Comparator.comparingLong(ChunkPos::asLong), 20 * 60);
+
+    private int completedCount;
+    private int timeoutCount;
+    private int cancelCount;
+    private long totalWaitTime;
+    private long maxWaitTime;
+
     private MidnightTeleporter() {
     }
 
-    public void teleport(Entity entity) {
+    /**
+     * Starts loading or generating the destination chunk for the given entity without blocking the server thread. The
+     * returned teleport should be ticked until it finishes, and will move the entity once the chunk is available.
+     */
+    @Nullable
+    public Pending prepare(Entity entity) {
         MinecraftServer server = LogicalSidedProvider.INSTANCE.get(LogicalSide.SERVER);
         if (server == null) {
-            return;
+            return null;
         }
 
         DimensionType endpointDimension = this.getEndpointDimension(entity.dimension);
         ServerWorld endpointWorld = server.getWorld(endpointDimension);
 
         BlockPos pos = entity.getPosition();
-        IChunk chunk = endpointWorld.getChunk(pos);
+        ChunkPos chunkPos = new ChunkPos(pos);
+        ServerChunkProvider chunkProvider = endpointWorld.getChunkProvider();
+        chunkProvider.registerTicket(TICKET, chunkPos, 0, chunkPos);
+
+        CompletableFuture<Either<IChunk, ChunkHolder.IChunkLoadingError>> future = chunkProvider.func_217233_c(chunkPos.x, chunkPos.z, ChunkStatus.FULL, true);
+        return new Pending(entity.dimension, endpointWorld, pos, future);
+    }
+
+    // the position is the one the destination chunk was prepared for, so everything here stays within that chunk
+    private void teleport(Entity entity, ServerWorld endpointWorld, BlockPos pos, IChunk chunk) {
         int surfaceY = chunk.getTopBlockY(Heightmap.Type.MOTION_BLOCKING, pos.getX(), pos.getZ()) + 1;
 
-        BlockPos portalPos = findPortal(endpointWorld, pos, surfaceY);
+        BlockPos portalPos = findPortal(chunk, pos, surfaceY);
 
         Vec3d endpointPos = new Vec3d(pos.getX() + 0.5, portalPos.getY(), pos.getZ() + 0.5);
         Entity teleportedEntity = this.teleportEntity(entity, endpointWorld, endpointPos);
         teleportedEntity.fallDistance = 0.0F;
     }
 
-    private BlockPos findPortal(ServerWorld world, BlockPos pos, int surfaceY) {
+    private BlockPos findPortal(IChunk chunk, BlockPos pos, int surfaceY) {
         BlockPos pos2 = new BlockPos(pos.getX(), surfaceY, pos.getZ());
         for (int i = -20; i <= 5; i++) {
-            if (world.getBlockState(pos2.up(i)).getBlock() == MidnightBlocks.RIFT_PORTAL) {
+            if (chunk.getBlockState(pos2.up(i)).getBlock() == MidnightBlocks.RIFT_PORTAL) {
                 return pos2.up(i + 1);
             }
         }
@@ -77,4 +115,77 @@ public class MidnightTeleporter {
     private DimensionType getEndpointDimension(DimensionType source) {
         return source.getModType() == MidnightDimensions.MIDNIGHT ? DimensionType.OVERWORLD : MidnightDimensions.midnight();
     }
+
+    private void recordWait(long waitTime) {
+        this.completedCount++;
+        this.totalWaitTime += waitTime;
+        this.maxWaitTime = Math.max(this.maxWaitTime, waitTime);
+    }
+
+    public String describeWaits() {
+        double averageWait = this.completedCount > 0 ? (double) this.totalWaitTime / this.completedCount : 0.0;
+        return String.format("Rift teleports: %d completed, %d timed out, %d cancelled, %.1fms average wait, %dms longest wait",
+                this.completedCount, this.timeoutCount, this.cancelCount, averageWait, this.maxWaitTime
+        );
+    }
+
+    public class Pending {
+        private final DimensionType sourceDimension;
+        private final ServerWorld endpointWorld;
+        private final BlockPos pos;
+        private final ChunkPos chunkPos;
+        private final CompletableFuture<Either<IChunk, ChunkHolder.IChunkLoadingError>> future;
+        private final long startTime = Util.milliTime();
+
+        private Pending(DimensionType sourceDimension, ServerWorld endpointWorld, BlockPos pos, CompletableFuture<Either<IChunk, ChunkHolder.IChunkLoadingError>> future) {
+            this.sourceDimension = sourceDimension;
+            this.endpointWorld = endpointWorld;
+            this.pos = pos;
+            this.chunkPos = new ChunkPos(pos);
+            this.future = future;
+        }
+
+        /**
+         * @param inRift whether the entity is still standing in the rift that started this teleport
+         * @return true once this teleport has either moved the entity or been abandoned
+         */
+        public boolean tick(Entity entity, boolean inRift) {
+            if (!entity.isAlive()) {
+                this.release();
+                return true;
+            }
+
+            if (!inRift || entity.dimension != this.sourceDimension) {
+                MidnightTeleporter.this.cancelCount++;
+                this.release();
+                return true;
+            }
+
+            long waitTime = Util.milliTime() - this.startTime;
+            if (!this.future.isDone()) {
+                if (waitTime > TIMEOUT) {
+                    MidnightTeleporter.this.timeoutCount++;
+                    Midnight.LOGGER.warn("Timed out waiting {}ms for rift destination {} in {}", waitTime, this.chunkPos, this.endpointWorld.dimension.getType());
+                    this.release();
+                    return true;
+                }
+                return false;
+            }
+
+            Optional<IChunk> chunk = this.future.isCompletedExceptionally() ? Optional.empty() : this.future.join().left();
+            if (chunk.isPresent()) {
+                MidnightTeleporter.this.recordWait(waitTime);
+                MidnightTeleporter.this.teleport(entity, this.endpointWorld, this.pos, chunk.get());
+            } else {
+                Midnight.LOGGER.warn("Failed to load rift destination {} in {}", this.chunkPos, this.endpointWorld.dimension.getType());
+            }
+
+            this.release();
+            return true;
+        }
+
+        private void release() {
+            this.endpointWorld.getChunkProvider().releaseTicket(TICKET, this.chunkPos, 0, this.chunkPos);
+        }
+    }
 }
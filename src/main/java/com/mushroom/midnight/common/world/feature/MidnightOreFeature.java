@@ -3,6 +3,11 @@ package com.mushroom.midnight.common.world.feature;
 import com.mojang.datafixers.Dynamic;
 import com.mushroom.midnight.common.registry.MidnightTags;
 import com.mushroom.midnight.common.world.feature.config.MidnightOreConfig;
+import com.mushroom.midnight.common.world.util.ChunkFloorHeights;
+import com.mushroom.midnight.common.world.util.SectionBlockWriter;
+import com.mushroom.midnight.common.world.util.StateFlagTable;
+import net.minecraft.block.BlockState;
+import net.minecraft.tags.BlockTags;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.MathHelper;
 import net.minecraft.world.IWorld;
@@ -10,12 +15,21 @@ import net.minecraft.world.gen.ChunkGenerator;
 import net.minecraft.world.gen.GenerationSettings;
 import net.minecraft.world.gen.Heightmap;
 import net.minecraft.world.gen.feature.Feature;
+import net.minecraftforge.common.util.Constants;
 
 import java.util.BitSet;
 import java.util.Random;
 import java.util.function.Function;
 
 public class MidnightOreFeature extends Feature<MidnightOreConfig> {
+    private static final ThreadLocal<VeinScratch> SCRATCH = ThreadLocal.withInitial(VeinScratch::new);
+    private static final ThreadLocal<ChunkFloorHeights> FLOOR_HEIGHTS = ThreadLocal.withInitial(ChunkFloorHeights::new);
+
+    private static final int CAN_HOLD_ORES = 1;
+
+    private static final StateFlagTable ORE_HOSTS = new StateFlagTable(state -> state.isIn(MidnightTags.Blocks.CAN_HOLD_ORES) ? CAN_HOLD_ORES : 0);
+    private static volatile int oreHostsGeneration = -1;
+
     public MidnightOreFeature(Function<Dynamic<?>, ? extends MidnightOreConfig> deserialize) {
         super(deserialize);
     }
@@ -42,6 +56,12 @@ public class MidnightOreFeature extends Feature<MidnightOreConfig> {
         int sizeXZ = 2 * (MathHelper.ceil(length) + halfSize);
         int sizeY = 2 * (2 + halfSize);
 
+        // midnight ores sit far below the surface, so the lowest floor of the covered chunks almost always settles this
+        int floorHeight = FLOOR_HEIGHTS.get().getMinHeight(world, minX, minZ, minX + sizeXZ, minZ + sizeXZ);
+        if (minY <= floorHeight) {
+            return this.tryPlaceVein(world, random, config, startX, endX, startZ, endZ, startY, endY, minX, minY, minZ, sizeXZ, sizeY);
+        }
+
         for (int x = minX; x <= minX + sizeXZ; ++x) {
             for (int z = minZ; z <= minZ + sizeXZ; ++z) {
                 if (minY <= world.getHeight(Heightmap.Type.OCEAN_FLOOR_WG, x, z)) {
@@ -54,14 +74,13 @@ public class MidnightOreFeature extends Feature<MidnightOreConfig> {
     }
 
     private boolean tryPlaceVein(IWorld world, Random random, MidnightOreConfig config, double startX, double endX, double startZ, double endZ, double startY, double endY, int minX, int minY, int minZ, int sizeXZ, int sizeY) {
-        int placedBlocks = 0;
-        BitSet mask = new BitSet(sizeXZ * sizeY * sizeXZ);
-        BlockPos.Mutable pos = new BlockPos.Mutable();
+        VeinScratch scratch = SCRATCH.get();
+        scratch.prepare(config.size);
 
-        double[] xTable = new double[config.size];
-        double[] yTable = new double[config.size];
-        double[] zTable = new double[config.size];
-        double[] distTable = new double[config.size];
+        double[] xTable = scratch.xTable;
+        double[] yTable = scratch.yTable;
+        double[] zTable = scratch.zTable;
+        double[] distTable = scratch.distTable;
 
         for (int i = 0; i < config.size; ++i) {
             float alpha = (float) i / config.size;
@@ -100,39 +119,46 @@ public class MidnightOreFeature extends Feature<MidnightOreConfig> {
             }
         }
 
-        for (int i = 0; i < config.size; ++i) {
-            double distance = distTable[i];
-            if (distance < 0.0) {
-                continue;
-            }
+        StateFlagTable oreHosts = getOreHosts();
+        BitSet mask = scratch.mask;
+        SectionBlockWriter writer = scratch.writer.begin(world, Constants.BlockFlags.BLOCK_UPDATE);
+
+        int placedBlocks = 0;
+        try {
+            for (int i = 0; i < config.size; ++i) {
+                double distance = distTable[i];
+                if (distance < 0.0) {
+                    continue;
+                }
 
-            double x = xTable[i];
-            double y = yTable[i];
-            double z = zTable[i];
-
-            int minBX = Math.max(MathHelper.floor(x - distance), minX);
-            int minBY = Math.max(MathHelper.floor(y - distance), minY);
-            int minBZ = Math.max(MathHelper.floor(z - distance), minZ);
-            int maxBX = Math.max(MathHelper.floor(x + distance), minBX);
-            int maxBY = Math.max(MathHelper.floor(y + distance), minBY);
-            int maxBZ = Math.max(MathHelper.floor(z + distance), minBZ);
-
-            for (int bx = minBX; bx <= maxBX; ++bx) {
-                double deltaX = (bx + 0.5 - x) / distance;
-                if (deltaX * deltaX < 1.0) {
-                    for (int by = minBY; by <= maxBY; ++by) {
-                        double deltaY = (by + 0.5 - y) / distance;
-                        if (deltaX * deltaX + deltaY * deltaY < 1.0) {
-                            for (int bz = minBZ; bz <= maxBZ; ++bz) {
-                                double deltaZ = (bz + 0.5 - z) / distance;
-                                if (deltaX * deltaX + deltaY * deltaY + deltaZ * deltaZ < 1.0) {
-                                    int maskIndex = bx - minX + (by - minY) * sizeXZ + (bz - minZ) * sizeXZ * sizeY;
-                                    if (!mask.get(maskIndex)) {
-                                        mask.set(maskIndex);
-                                        pos.setPos(bx, by, bz);
-                                        if (world.getBlockState(pos).isIn(MidnightTags.Blocks.CAN_HOLD_ORES)) {
-                                            world.setBlockState(pos, config.state, 2);
-                                            placedBlocks++;
+                double x = xTable[i];
+                double y = yTable[i];
+                double z = zTable[i];
+
+                int minBX = Math.max(MathHelper.floor(x - distance), minX);
+                int minBY = Math.max(MathHelper.floor(y - distance), minY);
+                int minBZ = Math.max(MathHelper.floor(z - distance), minZ);
+                int maxBX = Math.max(MathHelper.floor(x + distance), minBX);
+                int maxBY = Math.max(MathHelper.floor(y + distance), minBY);
+                int maxBZ = Math.max(MathHelper.floor(z + distance), minBZ);
+
+                for (int bx = minBX; bx <= maxBX; ++bx) {
+                    double deltaX = (bx + 0.5 - x) / distance;
+                    if (deltaX * deltaX < 1.0) {
+                        for (int by = minBY; by <= maxBY; ++by) {
+                            double deltaY = (by + 0.5 - y) / distance;
+                            if (deltaX * deltaX + deltaY * deltaY < 1.0) {
+                                for (int bz = minBZ; bz <= maxBZ; ++bz) {
+                                    double deltaZ = (bz + 0.5 - z) / distance;
+                                    if (deltaX * deltaX + deltaY * deltaY + deltaZ * deltaZ < 1.0) {
+                                        int maskIndex = bx - minX + (by - minY) * sizeXZ + (bz - minZ) * sizeXZ * sizeY;
+                                        if (!mask.get(maskIndex)) {
+                                            mask.set(maskIndex);
+                                            BlockState state = writer.getBlockState(bx, by, bz);
+                                            if ((oreHosts.get(state) & CAN_HOLD_ORES) != 0) {
+                                                writer.setBlockState(bx, by, bz, state, config.state);
+                                                placedBlocks++;
+                                            }
                                         }
                                     }
                                 }
@@ -141,8 +167,40 @@ public class MidnightOreFeature extends Feature<MidnightOreConfig> {
                     }
                 }
             }
+        } finally {
+            writer.end();
         }
 
         return placedBlocks > 0;
     }
+
+    // the table already follows state id remaps, but not changes to the tag itself
+    private static StateFlagTable getOreHosts() {
+        int generation = BlockTags.getGeneration();
+        if (oreHostsGeneration != generation) {
+            ORE_HOSTS.invalidate();
+            oreHostsGeneration = generation;
+        }
+        return ORE_HOSTS;
+    }
+
+    private static class VeinScratch {
+        final BitSet mask = new BitSet();
+        final SectionBlockWriter writer = new SectionBlockWriter();
+
+        double[] xTable = new double[0];
+        double[] yTable = new double[0];
+        double[] zTable = new double[0];
+        double[] distTable = new double[0];
+
+        void prepare(int size) {
+            if (this.xTable.length < size) {
+                this.xTable = new double[size];
+                this.yTable = new double[size];
+                this.zTable = new double[size];
+                this.distTable = new double[size];
+            }
+            this.mask.clear();
+        }
+    }
 }
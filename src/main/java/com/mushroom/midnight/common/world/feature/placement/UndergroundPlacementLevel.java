@@ -2,6 +2,7 @@ package com.mushroom.midnight.common.world.feature.placement;
 
 import com.mushroom.midnight.common.world.MidnightChunkGenerator;
 import com.mushroom.midnight.common.world.PlacementLevel;
+import com.mushroom.midnight.common.world.util.CaveFloorMap;
 import net.minecraft.block.BlockState;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.IWorld;
@@ -13,6 +14,8 @@ import java.util.function.Predicate;
 public class UndergroundPlacementLevel implements PlacementLevel {
     public static final PlacementLevel INSTANCE = new UndergroundPlacementLevel();
 
+    private static final int MIN_Y = 5;
+
     private UndergroundPlacementLevel() {
     }
 
@@ -21,9 +24,15 @@ public class UndergroundPlacementLevel implements PlacementLevel {
         IChunk chunk = world.getChunk(pos);
         Predicate<BlockState> predicate = heightmap.getHeightLimitPredicate();
 
+        CaveFloorMap floors = heightmap == Heightmap.Type.MOTION_BLOCKING ? CaveFloorMap.get(chunk) : null;
+        if (floors != null) {
+            int y = floors.getFloor(chunk, pos.getX() & 15, pos.getZ() & 15, MIN_Y, MidnightChunkGenerator.SURFACE_CAVE_BOUNDARY, predicate);
+            return y != CaveFloorMap.NONE ? new BlockPos(pos.getX(), y, pos.getZ()) : pos;
+        }
+
         BlockPos.Mutable mutablePos = new BlockPos.Mutable(pos);
 
-        for (int y = 5; y < MidnightChunkGenerator.SURFACE_CAVE_BOUNDARY; y++) {
+        for (int y = MIN_Y; y < MidnightChunkGenerator.SURFACE_CAVE_BOUNDARY; y++) {
             mutablePos.setY(y);
 
             BlockState state = chunk.getBlockState(mutablePos);
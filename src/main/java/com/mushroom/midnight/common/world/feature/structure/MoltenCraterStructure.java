@@ -8,6 +8,8 @@ import com.mushroom.midnight.common.registry.MidnightTags;
 import com.mushroom.midnight.common.world.MidnightChunkGenerator;
 import com.mushroom.midnight.common.world.noise.INoiseSampler;
 import com.mushroom.midnight.common.world.noise.PerlinNoiseSampler;
+import com.mushroom.midnight.common.world.util.SectionBlockWriter;
+import com.mushroom.midnight.common.world.util.StripedLruCache;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.Blocks;
 import net.minecraft.block.material.Material;
@@ -31,7 +33,10 @@ import net.minecraft.world.gen.feature.template.TemplateManager;
 import net.minecraftforge.common.util.Constants;
 
 import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.Map;
 import java.util.Random;
+import java.util.WeakHashMap;
 import java.util.function.Function;
 
 public final class MoltenCraterStructure extends Structure<NoFeatureConfig> {
@@ -57,6 +62,8 @@ public final class MoltenCraterStructure extends Structure<NoFeatureConfig> {
     private static final BlockState MIASMA_SURFACE = MidnightBlocks.MIASMA_SURFACE.getDefaultState();
     private static final BlockState SURFACE = MidnightBlocks.TRENCHSTONE.getDefaultState();
 
+    private static final int CELL_CACHE_CAPACITY = 1024;
+
     private static final INoiseSampler NOISE_SAMPLER = new PerlinNoiseSampler(new Random(SEED));
     public static final String NAME = "midnight:molten_crater";
 
@@ -64,6 +71,9 @@ public final class MoltenCraterStructure extends Structure<NoFeatureConfig> {
         NOISE_SAMPLER.setFrequency(0.001);
     }
 
+    // the structure instance is shared between worlds, so each generator gets its own cells
+    private final Map<ChunkGenerator<?>, StripedLruCache<Long, Cell>> cellCaches = Collections.synchronizedMap(new WeakHashMap<>());
+
     public MoltenCraterStructure(Function<Dynamic<?>, ? extends NoFeatureConfig> deserialize) {
         super(deserialize);
     }
@@ -90,21 +100,37 @@ public final class MoltenCraterStructure extends Structure<NoFeatureConfig> {
     public boolean func_225558_a_(BiomeManager p_225558_1_, ChunkGenerator<?> generator, Random random, int chunkX, int chunkZ, Biome p_225558_6_) {
         ChunkPos startPos = this.getStartPositionForPosition(generator, random, chunkX, chunkZ, 0, 0);
         if (chunkX == startPos.x && chunkZ == startPos.z) {
-            SharedSeedRandom seedRandom = (SharedSeedRandom) random;
-            seedRandom.setLargeFeatureSeed(generator.getSeed(), chunkX, chunkZ);
-
-            Metadata metadata = Metadata.generate(seedRandom, generator, chunkX, chunkZ);
-            if (metadata.isValid()) {
-                BiomeProvider biomeProvider = generator.getBiomeProvider();
-                return biomeProvider.func_225530_a_((chunkX << 4) + 9, 0, (chunkZ << 4) + 9, metadata.radius)
-                        .stream()
-                        .allMatch(biome -> generator.hasStructure(biome, this));
-            }
+            return this.getCell(generator, (SharedSeedRandom) random, chunkX, chunkZ).valid;
         }
 
         return false;
     }
 
+    // the origin height probe and biome check are shared between the placement test, the start and any locate
+    // queries, so they are only evaluated once for each grid cell's start chunk
+    private Cell getCell(ChunkGenerator<?> generator, SharedSeedRandom random, int chunkX, int chunkZ) {
+        StripedLruCache<Long, Cell> cellCache = this.cellCaches.computeIfAbsent(generator, g -> new StripedLruCache<>(CELL_CACHE_CAPACITY));
+        long key = ChunkPos.asLong(chunkX, chunkZ);
+
+        Cell cell = cellCache.get(key);
+        if (cell == null) {
+            random.setLargeFeatureSeed(generator.getSeed(), chunkX, chunkZ);
+
+            Metadata metadata = Metadata.generate(random, generator, chunkX, chunkZ);
+            cell = new Cell(metadata, metadata.isValid() && this.canGenerateIn(generator, metadata, chunkX, chunkZ));
+            cellCache.put(key, cell);
+        }
+
+        return cell;
+    }
+
+    private boolean canGenerateIn(ChunkGenerator<?> generator, Metadata metadata, int chunkX, int chunkZ) {
+        BiomeProvider biomeProvider = generator.getBiomeProvider();
+        return biomeProvider.func_225530_a_((chunkX << 4) + 9, 0, (chunkZ << 4) + 9, metadata.radius)
+                .stream()
+                .allMatch(biome -> generator.hasStructure(biome, this));
+    }
+
     @Override
     public IStartFactory getStartFactory() {
         return Start::new;
@@ -164,6 +190,16 @@ public final class MoltenCraterStructure extends Structure<NoFeatureConfig> {
         }
     }
 
+    private static class Cell {
+        final Metadata metadata;
+        final boolean valid;
+
+        Cell(Metadata metadata, boolean valid) {
+            this.metadata = metadata;
+            this.valid = valid;
+        }
+    }
+
     public static class Start extends StructureStart {
         Start(Structure<?> structure, int chunkX, int chunkZ, MutableBoundingBox bounds, int reference, long seed) {
             super(structure, chunkX, chunkZ, bounds, reference, seed);
@@ -171,7 +207,8 @@ public final class MoltenCraterStructure extends Structure<NoFeatureConfig> {
 
         @Override
         public void init(ChunkGenerator<?> generator, TemplateManager templateManager, int chunkX, int chunkZ, Biome biome) {
-            Metadata metadata = Metadata.generate(this.rand, generator, chunkX, chunkZ);
+            MoltenCraterStructure structure = (MoltenCraterStructure) this.getStructure();
+            Metadata metadata = structure.getCell(generator, this.rand, chunkX, chunkZ).metadata;
             this.components.add(new Piece(metadata));
             this.recalculateStructureSize();
         }
@@ -228,41 +265,83 @@ public final class MoltenCraterStructure extends Structure<NoFeatureConfig> {
             BlockPos minPos = new BlockPos(minX, minY, minZ);
             BlockPos maxPos = new BlockPos(maxX, maxY, maxZ);
 
-            this.carveCrater(world, minPos, maxPos);
+            SectionBlockWriter writer = new SectionBlockWriter().begin(world, Constants.BlockFlags.BLOCK_UPDATE);
+            this.carveCrater(writer, minPos, maxPos);
             this.decorateSurface(world, random, minPos, maxPos);
 
             return true;
         }
 
-        private void carveCrater(IWorld world, BlockPos minPos, BlockPos maxPos) {
+        /**
+         * Carves the crater and hardens its edge within the given positions, which must lie within the bounding box of
+         * this piece. The surface is left undecorated.
+         */
+        public void carveCrater(SectionBlockWriter writer, BlockPos minPos, BlockPos maxPos) {
             int edgeRadius = this.metadata.radius + EDGE_DEPTH;
 
             int radiusSquared = this.metadata.radius * this.metadata.radius;
             int edgeRadiusSquared = edgeRadius * edgeRadius;
             int poolLevel = this.metadata.originY - this.metadata.radius / SCALE_Y + POOL_DEPTH;
 
-            for (BlockPos pos : BlockPos.getAllInBoxMutable(minPos, maxPos)) {
-                double noise = (NOISE_SAMPLER.get(pos.getX(), pos.getY(), pos.getZ()) + 1.0) * 8.0;
-                double distanceSquared = this.computeDistanceToCenterSquared(pos.getX(), pos.getY(), pos.getZ()) + noise * noise;
-                if (distanceSquared <= edgeRadiusSquared) {
-                    if (distanceSquared < radiusSquared) {
-                        this.carveCraterBlock(world, poolLevel, pos);
-                    } else {
-                        this.hardenEdgeBlock(world, pos);
+            int minY = minPos.getY();
+            int maxY = maxPos.getY();
+
+            for (int z = minPos.getZ(); z <= maxPos.getZ(); z++) {
+                for (int x = minPos.getX(); x <= maxPos.getX(); x++) {
+                    int deltaX = x - this.metadata.originX;
+                    int deltaZ = z - this.metadata.originZ;
+                    int horizontalSquared = deltaX * deltaX + deltaZ * deltaZ;
+                    if (horizontalSquared > edgeRadiusSquared) {
+                        continue;
+                    }
+
+                    // the edge noise is sampled once per column on the origin plane rather than per block. since the
+                    // vertical distance term only grows below the origin, each column then carves a single run from
+                    // the top with a single hardened run beneath it. this does change the output: blocks at the rim
+                    // and floor of the crater, where the distance is close to either radius, can be carved or hardened
+                    // differently than with per block noise
+                    double noise = (NOISE_SAMPLER.get(x, this.metadata.originY, z) + 1.0) * 8.0;
+                    double noiseSquared = noise * noise;
+
+                    int edgeMinY = this.findMinY(horizontalSquared, noiseSquared, edgeRadiusSquared, true, minY, maxY);
+                    if (edgeMinY > maxY) {
+                        continue;
+                    }
+                    int carveMinY = this.findMinY(horizontalSquared, noiseSquared, radiusSquared, false, edgeMinY, maxY);
+
+                    for (int y = edgeMinY; y < carveMinY; y++) {
+                        BlockState currentState = writer.getBlockState(x, y, z);
+                        if (this.canHarden(currentState)) {
+                            writer.setBlockState(x, y, z, currentState, SURFACE);
+                        }
+                    }
+
+                    for (int y = carveMinY; y <= maxY; y++) {
+                        BlockState currentState = writer.getBlockState(x, y, z);
+                        if (currentState != AIR) {
+                            writer.setBlockState(x, y, z, currentState, y <= poolLevel ? MIASMA : AIR);
+                        }
                     }
                 }
             }
         }
 
-        private void carveCraterBlock(IWorld world, int poolLevel, BlockPos pos) {
-            if (world.getBlockState(pos) == AIR) {
-                return;
+        // lowest y in the column that falls within the given radius, or maxY + 1 if nothing does
+        private int findMinY(int horizontalSquared, double noiseSquared, int radiusSquared, boolean inclusive, int minY, int maxY) {
+            int y = Math.min(maxY, this.metadata.originY);
+            if (!this.isWithinRadius(horizontalSquared, noiseSquared, y, radiusSquared, inclusive)) {
+                return maxY + 1;
             }
-            if (pos.getY() <= poolLevel) {
-                world.setBlockState(pos, MIASMA, Constants.BlockFlags.BLOCK_UPDATE);
-            } else {
-                world.setBlockState(pos, AIR, Constants.BlockFlags.BLOCK_UPDATE);
+            while (y > minY && this.isWithinRadius(horizontalSquared, noiseSquared, y - 1, radiusSquared, inclusive)) {
+                y--;
             }
+            return y;
+        }
+
+        private boolean isWithinRadius(int horizontalSquared, double noiseSquared, int y, int radiusSquared, boolean inclusive) {
+            int deltaY = Math.min(y - this.metadata.originY, 0) * SCALE_Y;
+            double distanceSquared = (horizontalSquared + deltaY * deltaY) + noiseSquared;
+            return inclusive ? distanceSquared <= radiusSquared : distanceSquared < radiusSquared;
         }
 
         private boolean canHarden(BlockState state) {
@@ -274,13 +353,6 @@ public final class MoltenCraterStructure extends Structure<NoFeatureConfig> {
             return mat == Material.ROCK || mat == Material.EARTH || mat == Material.SAND || mat == Material.CLAY || mat == Material.ORGANIC;
         }
 
-        private void hardenEdgeBlock(IWorld world, BlockPos pos) {
-            BlockState currentState = world.getBlockState(pos);
-            if (canHarden(currentState)) {
-                world.setBlockState(pos, SURFACE, Constants.BlockFlags.BLOCK_UPDATE);
-            }
-        }
-
         private void decorateSurface(IWorld world, Random random, BlockPos minPos, BlockPos maxPos) {
             int edgeRadius = this.metadata.radius + EDGE_DEPTH;
             int edgeRadiusSquared = edgeRadius * edgeRadius;
@@ -321,12 +393,5 @@ public final class MoltenCraterStructure extends Structure<NoFeatureConfig> {
             }
             return null;
         }
-
-        private double computeDistanceToCenterSquared(int x, int y, int z) {
-            int deltaX = x - this.metadata.originX;
-            int deltaY = Math.min(y - this.metadata.originY, 0) * SCALE_Y;
-            int deltaZ = z - this.metadata.originZ;
-            return deltaX * deltaX + deltaY * deltaY + deltaZ * deltaZ;
-        }
     }
 }
@@ -5,30 +5,129 @@ import com.mojang.datafixers.Dynamic;
 import com.mushroom.midnight.common.registry.MidnightBlocks;
 import com.mushroom.midnight.common.registry.MidnightFluids;
 import com.mushroom.midnight.common.world.MidnightChunkGenerator;
+import com.mushroom.midnight.common.world.util.StateFlagTable;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.Blocks;
 import net.minecraft.block.material.Material;
 import net.minecraft.util.Direction;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.biome.Biome;
+import net.minecraft.world.chunk.ChunkPrimer;
+import net.minecraft.world.chunk.ChunkSection;
 import net.minecraft.world.chunk.IChunk;
 import net.minecraft.world.gen.carver.CaveWorldCarver;
+import net.minecraft.world.gen.carver.ConfiguredCarver;
 import net.minecraft.world.gen.feature.ProbabilityConfig;
 
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 
 public class MidnightCaveCarver extends CaveWorldCarver {
+    private static final BlockState VOID_AIR = Blocks.VOID_AIR.getDefaultState();
+
+    private static final int CARVABLE = 1;
+    private static final int PREVENTS_CARVING = 2;
+    private static final int PREVENTS_CARVING_LOW = 4;
+
     private final float radiusScale;
 
+    private final ThreadLocal<StateFlags> stateFlags = ThreadLocal.withInitial(StateFlags::new);
+    private final StateFlagTable stateFlagTable = new StateFlagTable(this::computeStateFlags);
+
+    private final ThreadLocal<TunnelPath.Builder> recorder = new ThreadLocal<>();
+
     public MidnightCaveCarver(Function<Dynamic<?>, ? extends ProbabilityConfig> deserialize, float radiusScale) {
         super(deserialize, 256);
         this.radiusScale = radiusScale;
         this.carvableFluids = ImmutableSet.of(MidnightFluids.FLOWING_MIASMA);
     }
 
+    /**
+     * Runs the tunnel walk for the given origin without carving anything, collecting every carve step so that it can be
+     * replayed against each chunk the tunnels pass through. The random must already be seeded for the origin and have
+     * passed the start check.
+     */
+    public TunnelPath recordPath(ConfiguredCarver<?> carver, Random random, int seaLevel, int originX, int originZ) {
+        TunnelPath.Builder builder = new TunnelPath.Builder();
+        this.recorder.set(builder);
+        try {
+            carver.func_227207_a_(null, null, random, seaLevel, originX, originZ, originX, originZ, null);
+        } finally {
+            this.recorder.remove();
+        }
+        return builder.build();
+    }
+
+    /**
+     * Carves a recorded path into the given chunk. Each tunnel step is put through the same distance check the walk
+     * would have applied for this chunk, and a tunnel that fails it is cut off along with every branch it would have
+     * spawned, exactly as the walk itself returns at that point.
+     */
+    public void carvePath(IChunk chunk, Function<BlockPos, Biome> biomeFunc, TunnelPath path, int seaLevel, int chunkX, int chunkZ, BitSet carvingMask) {
+        int i = 0;
+        while (i < path.seeds.length) {
+            int offset = i * 5;
+            double x = path.steps[offset];
+            double z = path.steps[offset + 2];
+
+            int tunnel = path.tunnels[i];
+            if (tunnel != TunnelPath.NO_TUNNEL && !super.func_222702_a(chunkX, chunkZ, x, z, path.checkSteps[i], path.checkMaxSteps[i], path.widths[i])) {
+                i = path.tunnelEnds[tunnel];
+                continue;
+            }
+
+            this.func_227208_a_(
+                    chunk, biomeFunc, path.seeds[i], seaLevel, chunkX, chunkZ,
+                    x, path.steps[offset + 1], z,
+                    path.steps[offset + 3], path.steps[offset + 4],
+                    carvingMask
+            );
+            i++;
+        }
+    }
+
+    // while recording, tunnels must not stop early based on distance to the chunk being carved. the check is instead
+    // recorded with the step it guards and applied per chunk when the path is replayed
+    @Override
+    protected boolean func_222702_a(int chunkX, int chunkZ, double x, double z, int step, int maxStep, float width) {
+        TunnelPath.Builder builder = this.recorder.get();
+        if (builder != null) {
+            builder.check(step, maxStep, width);
+            return true;
+        }
+        return super.func_222702_a(chunkX, chunkZ, x, z, step, maxStep, width);
+    }
+
+    @Override
+    protected void func_227206_a_(IChunk chunk, Function<BlockPos, Biome> biomeFunc, long seed, int seaLevel, int chunkX, int chunkZ, double x, double y, double z, float width, float yaw, float pitch, int branchIndex, int branchCount, double yawModifier, BitSet carvingMask) {
+        TunnelPath.Builder builder = this.recorder.get();
+        if (builder == null) {
+            super.func_227206_a_(chunk, biomeFunc, seed, seaLevel, chunkX, chunkZ, x, y, z, width, yaw, pitch, branchIndex, branchCount, yawModifier, carvingMask);
+            return;
+        }
+
+        int tunnel = builder.beginTunnel();
+        try {
+            super.func_227206_a_(chunk, biomeFunc, seed, seaLevel, chunkX, chunkZ, x, y, z, width, yaw, pitch, branchIndex, branchCount, yawModifier, carvingMask);
+        } finally {
+            builder.endTunnel(tunnel);
+        }
+    }
+
+    @Override
+    protected boolean func_227208_a_(IChunk chunk, Function<BlockPos, Biome> biomeFunc, long seed, int seaLevel, int chunkX, int chunkZ, double x, double y, double z, double radius, double radiusY, BitSet carvingMask) {
+        TunnelPath.Builder builder = this.recorder.get();
+        if (builder != null) {
+            builder.add(seed, x, y, z, radius, radiusY);
+            return false;
+        }
+        return super.func_227208_a_(chunk, biomeFunc, seed, seaLevel, chunkX, chunkZ, x, y, z, radius, radiusY, carvingMask);
+    }
+
     @Override
     protected int generateCaveStartY(Random random) {
         return random.nextInt(random.nextInt(MidnightChunkGenerator.SEA_LEVEL) + 8);
@@ -42,19 +141,9 @@ public class MidnightCaveCarver extends CaveWorldCarver {
         } else {
             carvingMask.set(i);
             mutable.setPos(x, y, z);
-            boolean noAdjacentBlock = true;
-            for (Direction dir : Direction.values()) {
-                if (dir == Direction.DOWN) continue;
-                mutable.move(dir);
-                if (this.doesAdjacentBlockPreventCarving(chunk.getBlockState(mutable), mutable.getY() <= 10)) {
-                    noAdjacentBlock = false;
-                }
-                mutable.move(dir, -1);
-                if (!noAdjacentBlock) {
-                    break;
-                }
-            }
-            if (this.func_222706_a(chunk.getBlockState(mutable)) && noAdjacentBlock) {
+
+            boolean canCarve = chunk instanceof ChunkPrimer ? this.canCarveFast(chunk.getSections(), x & 15, y, z & 15) : this.canCarve(chunk, mutable);
+            if (canCarve) {
                 BlockState blockstate;
                 if (y <= 10) {
                     blockstate = MidnightBlocks.MIASMA.getDefaultState();
@@ -70,6 +159,64 @@ public class MidnightCaveCarver extends CaveWorldCarver {
         }
     }
 
+    private boolean canCarve(IChunk chunk, BlockPos.Mutable mutable) {
+        boolean noAdjacentBlock = true;
+        for (Direction dir : Direction.values()) {
+            if (dir == Direction.DOWN) continue;
+            mutable.move(dir);
+            if (this.doesAdjacentBlockPreventCarving(chunk.getBlockState(mutable), mutable.getY() <= 10)) {
+                noAdjacentBlock = false;
+            }
+            mutable.move(dir, -1);
+            if (!noAdjacentBlock) {
+                break;
+            }
+        }
+        return this.func_222706_a(chunk.getBlockState(mutable)) && noAdjacentBlock;
+    }
+
+    // reads sections directly with the same semantics as ChunkPrimer.getBlockState, including wrapping on the x and z axes
+    private boolean canCarveFast(ChunkSection[] sections, int x, int y, int z) {
+        StateFlags flags = this.stateFlags.get();
+
+        int aboveFlags = flags.get(getState(sections, x, y + 1, z));
+        if ((aboveFlags & (y + 1 <= 10 ? PREVENTS_CARVING_LOW : PREVENTS_CARVING)) != 0) {
+            return false;
+        }
+
+        int preventMask = y <= 10 ? PREVENTS_CARVING_LOW : PREVENTS_CARVING;
+        if ((flags.get(getState(sections, x, y, (z - 1) & 15)) & preventMask) != 0
+                || (flags.get(getState(sections, x, y, (z + 1) & 15)) & preventMask) != 0
+                || (flags.get(getState(sections, (x - 1) & 15, y, z)) & preventMask) != 0
+                || (flags.get(getState(sections, (x + 1) & 15, y, z)) & preventMask) != 0) {
+            return false;
+        }
+
+        return (flags.get(getState(sections, x, y, z)) & CARVABLE) != 0;
+    }
+
+    private static BlockState getState(ChunkSection[] sections, int x, int y, int z) {
+        if (y < 0 || y >= 256) {
+            return VOID_AIR;
+        }
+        ChunkSection section = sections[y >> 4];
+        return ChunkSection.isEmpty(section) ? AIR : section.getBlockState(x, y & 15, z);
+    }
+
+    private byte computeStateFlags(BlockState state) {
+        int flags = 0;
+        if (this.func_222706_a(state)) {
+            flags |= CARVABLE;
+        }
+        if (this.doesAdjacentBlockPreventCarving(state, false)) {
+            flags |= PREVENTS_CARVING;
+        }
+        if (this.doesAdjacentBlockPreventCarving(state, true)) {
+            flags |= PREVENTS_CARVING_LOW;
+        }
+        return (byte) flags;
+    }
+
     protected boolean doesAdjacentBlockPreventCarving(BlockState state, boolean miasmaHeight) {
         if (miasmaHeight && state.getBlock() == MidnightBlocks.MIASMA) return false;
         Material material = state.getMaterial();
@@ -100,4 +247,144 @@ public class MidnightCaveCarver extends CaveWorldCarver {
     protected float generateCaveRadius(Random random) {
         return super.generateCaveRadius(random) * this.radiusScale;
     }
+
+    /**
+     * The carve steps of every tunnel and room started from one origin chunk, stored as a seed and five coordinates
+     * (x, y, z, horizontal radius, vertical radius) per step. Tunnel steps also keep the arguments of the distance check
+     * that guarded them, along with the tunnel they belong to. Since the walk is depth-first, the steps of a tunnel and
+     * all of its branches form one contiguous range, which ends at the tunnel's recorded end.
+     */
+    public static class TunnelPath {
+        static final int NO_TUNNEL = -1;
+
+        private final long[] seeds;
+        private final double[] steps;
+        private final int[] tunnels;
+        private final int[] checkSteps;
+        private final int[] checkMaxSteps;
+        private final float[] widths;
+        private final int[] tunnelEnds;
+
+        private TunnelPath(long[] seeds, double[] steps, int[] tunnels, int[] checkSteps, int[] checkMaxSteps, float[] widths, int[] tunnelEnds) {
+            this.seeds = seeds;
+            this.steps = steps;
+            this.tunnels = tunnels;
+            this.checkSteps = checkSteps;
+            this.checkMaxSteps = checkMaxSteps;
+            this.widths = widths;
+            this.tunnelEnds = tunnelEnds;
+        }
+
+        static class Builder {
+            private long[] seeds = new long[64];
+            private double[] steps = new double[64 * 5];
+            private int[] tunnels = new int[64];
+            private int[] checkSteps = new int[64];
+            private int[] checkMaxSteps = new int[64];
+            private float[] widths = new float[64];
+            private int size;
+
+            private int[] tunnelEnds = new int[16];
+            private int tunnelCount;
+            private final IntArrayList openTunnels = new IntArrayList();
+
+            private boolean checked;
+            private int checkStep;
+            private int checkMaxStep;
+            private float checkWidth;
+
+            int beginTunnel() {
+                if (this.tunnelCount == this.tunnelEnds.length) {
+                    this.tunnelEnds = Arrays.copyOf(this.tunnelEnds, this.tunnelCount * 2);
+                }
+                int tunnel = this.tunnelCount++;
+                this.openTunnels.push(tunnel);
+                return tunnel;
+            }
+
+            void endTunnel(int tunnel) {
+                this.openTunnels.popInt();
+                this.tunnelEnds[tunnel] = this.size;
+            }
+
+            void check(int step, int maxStep, float width) {
+                this.checked = true;
+                this.checkStep = step;
+                this.checkMaxStep = maxStep;
+                this.checkWidth = width;
+            }
+
+            void add(long seed, double x, double y, double z, double radius, double radiusY) {
+                if (this.size == this.seeds.length) {
+                    int capacity = this.size * 2;
+                    this.seeds = Arrays.copyOf(this.seeds, capacity);
+                    this.steps = Arrays.copyOf(this.steps, capacity * 5);
+                    this.tunnels = Arrays.copyOf(this.tunnels, capacity);
+                    this.checkSteps = Arrays.copyOf(this.checkSteps, capacity);
+                    this.checkMaxSteps = Arrays.copyOf(this.checkMaxSteps, capacity);
+                    this.widths = Arrays.copyOf(this.widths, capacity);
+                }
+
+                int offset = this.size * 5;
+                this.seeds[this.size] = seed;
+                this.steps[offset] = x;
+                this.steps[offset + 1] = y;
+                this.steps[offset + 2] = z;
+                this.steps[offset + 3] = radius;
+                this.steps[offset + 4] = radiusY;
+
+                // room steps are carved without a distance check, even when they happen inside a tunnel
+                if (this.checked && !this.openTunnels.isEmpty()) {
+                    this.tunnels[this.size] = this.openTunnels.topInt();
+                    this.checkSteps[this.size] = this.checkStep;
+                    this.checkMaxSteps[this.size] = this.checkMaxStep;
+                    this.widths[this.size] = this.checkWidth;
+                } else {
+                    this.tunnels[this.size] = NO_TUNNEL;
+                }
+                this.checked = false;
+
+                this.size++;
+            }
+
+            TunnelPath build() {
+                int size = this.size;
+                return new TunnelPath(
+                        Arrays.copyOf(this.seeds, size), Arrays.copyOf(this.steps, size * 5),
+                        Arrays.copyOf(this.tunnels, size), Arrays.copyOf(this.checkSteps, size),
+                        Arrays.copyOf(this.checkMaxSteps, size), Arrays.copyOf(this.widths, size),
+                        Arrays.copyOf(this.tunnelEnds, this.tunnelCount)
+                );
+            }
+        }
+    }
+
+    /**
+     * Per-thread lookup of carving flags that remembers the last two states seen, since carving mostly alternates
+     * between the host stone and air.
+     */
+    private class StateFlags {
+        private BlockState firstState;
+        private int firstFlags;
+        private BlockState secondState;
+        private int secondFlags;
+
+        int get(BlockState state) {
+            if (state == this.firstState) {
+                return this.firstFlags;
+            }
+            if (state == this.secondState) {
+                return this.secondFlags;
+            }
+
+            int flags = MidnightCaveCarver.this.stateFlagTable.get(state);
+
+            this.secondState = this.firstState;
+            this.secondFlags = this.firstFlags;
+            this.firstState = state;
+            this.firstFlags = flags;
+
+            return flags;
+        }
+    }
 }
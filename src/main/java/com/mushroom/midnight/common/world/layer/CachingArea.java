@@ -0,0 +1,200 @@
+package com.mushroom.midnight.common.world.layer;
+
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.gen.area.IArea;
+import net.minecraft.world.gen.layer.traits.IPixelTransformer;
+
+import java.util.Arrays;
+
+/**
+ * Replacement for vanilla's LazyArea backed by a direct-mapped cache. An area and its context are only ever used by a
+ * single thread, so no locking is needed: {@link com.mushroom.midnight.common.biome.BiomeLayerType} builds one layer
+ * stack per sampling thread instead.
+ * <p>
+ * Besides single lookups, an area can {@link #fill} a whole rectangle. The rectangle each parent needs is found by
+ * evaluating only the border of the requested region, after which the parents are filled first and every layer is
+ * computed in one pass over a reusable window buffer rather than through per-pixel recursive lookups.
+ */
+public class CachingArea implements IArea {
+    private static final long EMPTY_KEY = Long.MIN_VALUE;
+    private static final CachingArea[] NO_PARENTS = new CachingArea[0];
+
+    private final IPixelTransformer transformer;
+    private final CachingArea[] parents;
+    private final long salt;
+    private final int capacity;
+
+    private final int mask;
+    private final long[] keys;
+    private final int[] values;
+
+    private int[] window = new int[0];
+    private int windowX;
+    private int windowZ;
+    private int windowWidth;
+    private int windowHeight;
+
+    private boolean recording;
+    private int recordMinX;
+    private int recordMinZ;
+    private int recordMaxX;
+    private int recordMaxZ;
+
+    private long hits;
+    private long misses;
+
+    CachingArea(IPixelTransformer transformer, CachingArea[] parents, long salt, int capacity) {
+        this.transformer = transformer;
+        this.parents = parents.length > 0 ? parents : NO_PARENTS;
+        this.salt = salt;
+
+        int size = Integer.highestOneBit(Math.max(capacity, 1) - 1) << 1;
+        this.capacity = Math.max(size, 1);
+        this.mask = this.capacity - 1;
+
+        this.keys = new long[this.capacity];
+        this.values = new int[this.capacity];
+        Arrays.fill(this.keys, EMPTY_KEY);
+    }
+
+    @Override
+    public int getValue(int x, int z) {
+        if (this.recording) {
+            this.record(x, z);
+        }
+
+        int localX = x - this.windowX;
+        int localZ = z - this.windowZ;
+        if (localX >= 0 && localZ >= 0 && localX < this.windowWidth && localZ < this.windowHeight) {
+            this.hits++;
+            return this.window[localX + localZ * this.windowWidth];
+        }
+
+        long key = ChunkPos.asLong(x, z);
+        int index = (int) mix(key) & this.mask;
+
+        if (this.keys[index] == key) {
+            this.hits++;
+            return this.values[index];
+        }
+
+        this.misses++;
+
+        int value = this.transformer.apply(x, z);
+        this.keys[index] = key;
+        this.values[index] = value;
+
+        return value;
+    }
+
+    /**
+     * Computes every value in the given rectangle. The returned array is this area's window buffer, laid out in rows of
+     * {@code width} values: it is reused by the next fill and may be longer than {@code width * height}.
+     */
+    public int[] fill(int x, int z, int width, int height) {
+        this.fillParents(x, z, width, height);
+
+        int size = width * height;
+        if (this.window.length < size) {
+            this.window = new int[size];
+        }
+
+        // invalidate the window while it is rewritten so that lookups made by the transformer can't read stale values
+        this.windowWidth = 0;
+        this.windowHeight = 0;
+
+        int[] window = this.window;
+        for (int localZ = 0; localZ < height; localZ++) {
+            for (int localX = 0; localX < width; localX++) {
+                window[localX + localZ * width] = this.transformer.apply(x + localX, z + localZ);
+            }
+        }
+
+        this.misses += size;
+
+        this.windowX = x;
+        this.windowZ = z;
+        this.windowWidth = width;
+        this.windowHeight = height;
+
+        return window;
+    }
+
+    private void fillParents(int x, int z, int width, int height) {
+        if (this.parents.length == 0) {
+            return;
+        }
+
+        for (CachingArea parent : this.parents) {
+            parent.startRecording();
+        }
+
+        // parent lookups grow monotonically with the sampled position, so the border bounds the region we depend on
+        int maxX = x + width - 1;
+        int maxZ = z + height - 1;
+        for (int localX = x; localX <= maxX; localX++) {
+            this.transformer.apply(localX, z);
+            if (maxZ != z) {
+                this.transformer.apply(localX, maxZ);
+            }
+        }
+        for (int localZ = z + 1; localZ < maxZ; localZ++) {
+            this.transformer.apply(x, localZ);
+            if (maxX != x) {
+                this.transformer.apply(maxX, localZ);
+            }
+        }
+
+        for (CachingArea parent : this.parents) {
+            parent.recording = false;
+        }
+
+        // pad by one so that positions jittered away from the border still land inside the parent window
+        for (CachingArea parent : this.parents) {
+            if (parent.recordMinX > parent.recordMaxX) {
+                continue;
+            }
+            parent.fill(
+                    parent.recordMinX - 1, parent.recordMinZ - 1,
+                    parent.recordMaxX - parent.recordMinX + 3,
+                    parent.recordMaxZ - parent.recordMinZ + 3
+            );
+        }
+    }
+
+    private void startRecording() {
+        this.recording = true;
+        this.recordMinX = Integer.MAX_VALUE;
+        this.recordMinZ = Integer.MAX_VALUE;
+        this.recordMaxX = Integer.MIN_VALUE;
+        this.recordMaxZ = Integer.MIN_VALUE;
+    }
+
+    private void record(int x, int z) {
+        this.recordMinX = Math.min(this.recordMinX, x);
+        this.recordMinZ = Math.min(this.recordMinZ, z);
+        this.recordMaxX = Math.max(this.recordMaxX, x);
+        this.recordMaxZ = Math.max(this.recordMaxZ, z);
+    }
+
+    private static long mix(long key) {
+        key *= 0x9E3779B97F4A7C15L;
+        return key ^ (key >>> 32);
+    }
+
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    public long getSalt() {
+        return this.salt;
+    }
+
+    public long getHits() {
+        return this.hits;
+    }
+
+    public long getMisses() {
+        return this.misses;
+    }
+}
@@ -0,0 +1,88 @@
+package com.mushroom.midnight.common.world.layer;
+
+import net.minecraft.world.gen.FastRandom;
+import net.minecraft.world.gen.IExtendedNoiseRandom;
+import net.minecraft.world.gen.ImprovedNoiseGenerator;
+import net.minecraft.world.gen.layer.traits.IPixelTransformer;
+
+import java.util.Random;
+
+/**
+ * Layer context producing {@link CachingArea}s. Seeding matches vanilla's LazyAreaLayerContext so that generated biomes
+ * are unchanged. Like vanilla, areas that depend on other areas get a larger cache than their parents, up to
+ * maxCapacity.
+ */
+public class CachingLayerContext implements IExtendedNoiseRandom<CachingArea> {
+    private final long salt;
+    private final long seed;
+    private final ImprovedNoiseGenerator noise;
+
+    private final int baseCapacity;
+    private final int maxCapacity;
+    private final LayerCacheStats stats;
+
+    private long positionSeed;
+
+    public CachingLayerContext(long worldSeed, long salt, int baseCapacity, int maxCapacity, LayerCacheStats stats) {
+        this.salt = salt;
+        this.seed = hash(worldSeed, salt);
+        this.noise = new ImprovedNoiseGenerator(new Random(worldSeed));
+
+        this.baseCapacity = baseCapacity;
+        this.maxCapacity = maxCapacity;
+        this.stats = stats;
+    }
+
+    @Override
+    public CachingArea makeArea(IPixelTransformer transformer) {
+        return this.createArea(transformer, new CachingArea[0], this.baseCapacity);
+    }
+
+    @Override
+    public CachingArea makeArea(IPixelTransformer transformer, CachingArea parent) {
+        return this.createArea(transformer, new CachingArea[] { parent }, parent.getCapacity() * 4);
+    }
+
+    @Override
+    public CachingArea makeArea(IPixelTransformer transformer, CachingArea first, CachingArea second) {
+        return this.createArea(transformer, new CachingArea[] { first, second }, Math.max(first.getCapacity(), second.getCapacity()) * 4);
+    }
+
+    private CachingArea createArea(IPixelTransformer transformer, CachingArea[] parents, int capacity) {
+        CachingArea area = new CachingArea(transformer, parents, this.salt, Math.min(capacity, this.maxCapacity));
+        this.stats.track(area);
+        return area;
+    }
+
+    @Override
+    public void setPosition(long x, long z) {
+        long seed = this.seed;
+        seed = FastRandom.mix(seed, x);
+        seed = FastRandom.mix(seed, z);
+        seed = FastRandom.mix(seed, x);
+        seed = FastRandom.mix(seed, z);
+        this.positionSeed = seed;
+    }
+
+    @Override
+    public int random(int bound) {
+        int result = (int) Math.floorMod(this.positionSeed >> 24, (long) bound);
+        this.positionSeed = FastRandom.mix(this.positionSeed, this.seed);
+        return result;
+    }
+
+    @Override
+    public ImprovedNoiseGenerator getNoiseGenerator() {
+        return this.noise;
+    }
+
+    private static long hash(long seed, long salt) {
+        long mixedSalt = FastRandom.mix(salt, salt);
+        mixedSalt = FastRandom.mix(mixedSalt, salt);
+        mixedSalt = FastRandom.mix(mixedSalt, salt);
+
+        long result = FastRandom.mix(seed, mixedSalt);
+        result = FastRandom.mix(result, mixedSalt);
+        return FastRandom.mix(result, mixedSalt);
+    }
+}
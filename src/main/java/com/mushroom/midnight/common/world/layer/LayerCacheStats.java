@@ -0,0 +1,56 @@
+package com.mushroom.midnight.common.world.layer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+
+/**
+ * Collects cache hit rates from every {@link CachingArea} created for a layer stack, across all threads. Areas count
+ * without synchronization, so the reported numbers are approximate while sampling is in progress.
+ */
+public class LayerCacheStats {
+    private final Set<CachingArea> areas = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    void track(CachingArea area) {
+        this.areas.add(area);
+    }
+
+    public long getHits() {
+        long hits = 0;
+        for (CachingArea area : this.snapshot()) {
+            hits += area.getHits();
+        }
+        return hits;
+    }
+
+    public long getMisses() {
+        long misses = 0;
+        for (CachingArea area : this.snapshot()) {
+            misses += area.getMisses();
+        }
+        return misses;
+    }
+
+    /**
+     * @return hit and miss counts summed per layer, keyed by the layer's seed modifier
+     */
+    public Map<Long, long[]> getLayerCounts() {
+        Map<Long, long[]> counts = new TreeMap<>();
+        for (CachingArea area : this.snapshot()) {
+            long[] layerCounts = counts.computeIfAbsent(area.getSalt(), s -> new long[2]);
+            layerCounts[0] += area.getHits();
+            layerCounts[1] += area.getMisses();
+        }
+        return counts;
+    }
+
+    private List<CachingArea> snapshot() {
+        synchronized (this.areas) {
+            return new ArrayList<>(this.areas);
+        }
+    }
+}
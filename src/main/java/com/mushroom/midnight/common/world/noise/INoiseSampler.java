@@ -11,6 +11,18 @@ public interface INoiseSampler {
 
     double get(double x, double y, double z);
 
+    default void getColumn(double[] column, double x, double z, int minY, int count) {
+        for (int i = 0; i < count; i++) {
+            column[i] = this.get(x, minY + i, z);
+        }
+    }
+
+    default void addColumn(double[] column, double x, double z, int minY, int count) {
+        for (int i = 0; i < count; i++) {
+            column[i] += this.get(x, minY + i, z);
+        }
+    }
+
     default double maintainPrecision(double coordinate) {
         long origin = MathHelper.lfloor(coordinate);
         double intermediate = coordinate - (double) origin;
@@ -1,5 +1,6 @@
 package com.mushroom.midnight.common.world.noise;
 
+import java.util.Arrays;
 import java.util.Random;
 import java.util.function.Supplier;
 
@@ -15,6 +16,7 @@ public class OctaveNoiseSampler implements INoiseSampler {
     public OctaveNoiseSampler(INoiseSampler[] samplers) {
         this.layers = samplers;
         this.octaveCount = samplers.length;
+        this.configureOctaves();
     }
 
     public static OctaveNoiseSampler count(int count, Supplier<INoiseSampler> supplier) {
@@ -36,60 +38,67 @@ public class OctaveNoiseSampler implements INoiseSampler {
     @Override
     public void setFrequency(double frequency) {
         this.frequency = frequency;
+        this.configureOctaves();
     }
 
     @Override
     public void setAmplitude(double amplitude) {
         this.amplitude = amplitude;
+        this.configureOctaves();
     }
 
     public void setPersistence(double persistence) {
         this.persistence = persistence;
+        this.configureOctaves();
     }
 
     public void setLacunarity(double lacunarity) {
         this.lacunarity = lacunarity;
+        this.configureOctaves();
     }
 
-    @Override
-    public double get(double x, double y) {
-        double value = 0.0;
-
+    private void configureOctaves() {
         double currentAmplitude = this.amplitude;
         double currentFrequency = this.frequency;
 
         for (int octave = 0; octave < this.octaveCount; octave++) {
             INoiseSampler sampler = this.layers[octave];
-
             sampler.setAmplitude(currentAmplitude);
             sampler.setFrequency(currentFrequency);
-            value += sampler.get(x, y);
 
             currentAmplitude *= this.persistence;
             currentFrequency *= this.lacunarity;
         }
+    }
 
+    @Override
+    public double get(double x, double y) {
+        double value = 0.0;
+        for (int octave = 0; octave < this.octaveCount; octave++) {
+            value += this.layers[octave].get(x, y);
+        }
         return value;
     }
 
     @Override
     public double get(double x, double y, double z) {
         double value = 0.0;
-
-        double currentAmplitude = this.amplitude;
-        double currentFrequency = this.frequency;
-
         for (int octave = 0; octave < this.octaveCount; octave++) {
-            INoiseSampler sampler = this.layers[octave];
+            value += this.layers[octave].get(x, y, z);
+        }
+        return value;
+    }
 
-            sampler.setAmplitude(currentAmplitude);
-            sampler.setFrequency(currentFrequency);
-            value += sampler.get(x, y, z);
+    @Override
+    public void getColumn(double[] column, double x, double z, int minY, int count) {
+        Arrays.fill(column, 0, count, 0.0);
+        this.addColumn(column, x, z, minY, count);
+    }
 
-            currentAmplitude *= this.persistence;
-            currentFrequency *= this.lacunarity;
+    @Override
+    public void addColumn(double[] column, double x, double z, int minY, int count) {
+        for (int octave = 0; octave < this.octaveCount; octave++) {
+            this.layers[octave].addColumn(column, x, z, minY, count);
         }
-
-        return value;
     }
 }
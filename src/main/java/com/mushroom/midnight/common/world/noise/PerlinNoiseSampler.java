@@ -116,6 +116,63 @@ public class PerlinNoiseSampler implements INoiseSampler {
         return this.evaluate(noise);
     }
 
+    @Override
+    public void getColumn(double[] column, double x, double z, int minY, int count) {
+        this.sampleColumn(column, x, z, minY, count, false);
+    }
+
+    @Override
+    public void addColumn(double[] column, double x, double z, int minY, int count) {
+        this.sampleColumn(column, x, z, minY, count, true);
+    }
+
+    private void sampleColumn(double[] column, double x, double z, int minY, int count, boolean accumulate) {
+        double scaledX = this.maintainPrecision(x * this.frequency) + this.offsetX;
+        int floorX = MathHelper.floor(scaledX);
+        int permX = floorX & 255;
+        double interX = scaledX - floorX;
+        double fadeX = MathHelper.perlinFade(interX);
+
+        double scaledZ = this.maintainPrecision(z * this.frequency) + this.offsetZ;
+        int floorZ = MathHelper.floor(scaledZ);
+        int permZ = floorZ & 255;
+        double interZ = scaledZ - floorZ;
+        double fadeZ = MathHelper.perlinFade(interZ);
+
+        int permXA = this.permutations[permX];
+        int permXD = this.permutations[permX + 1];
+
+        for (int i = 0; i < count; i++) {
+            double scaledY = this.maintainPrecision((minY + i) * this.frequency) + this.offsetY;
+            int floorY = MathHelper.floor(scaledY);
+            int permY = floorY & 255;
+            double interY = scaledY - floorY;
+            double fadeY = MathHelper.perlinFade(interY);
+
+            int permA = permXA + permY;
+            int permB = this.permutations[permA] + permZ;
+            int permC = this.permutations[permA + 1] + permZ;
+            int permD = permXD + permY;
+            int permE = this.permutations[permD] + permZ;
+            int permF = this.permutations[permD + 1] + permZ;
+
+            double noiseX1Y1 = this.lerp(fadeX, this.grad3D(this.permutations[permB], interX, interY, interZ), this.grad3D(this.permutations[permE], interX - 1.0, interY, interZ));
+            double noiseX2Y1 = this.lerp(fadeX, this.grad3D(this.permutations[permC], interX, interY - 1.0, interZ), this.grad3D(this.permutations[permF], interX - 1.0, interY - 1.0, interZ));
+            double noiseX1Y2 = this.lerp(fadeX, this.grad3D(this.permutations[permB + 1], interX, interY, interZ - 1.0), this.grad3D(this.permutations[permE + 1], interX - 1.0, interY, interZ - 1.0));
+            double noiseX2Y2 = this.lerp(fadeX, this.grad3D(this.permutations[permC + 1], interX, interY - 1.0, interZ - 1.0), this.grad3D(this.permutations[permF + 1], interX - 1.0, interY - 1.0, interZ - 1.0));
+
+            double noiseY1 = this.lerp(fadeY, noiseX1Y1, noiseX2Y1);
+            double noiseY2 = this.lerp(fadeY, noiseX1Y2, noiseX2Y2);
+            double noise = this.evaluate(this.lerp(fadeZ, noiseY1, noiseY2));
+
+            if (accumulate) {
+                column[i] += noise;
+            } else {
+                column[i] = noise;
+            }
+        }
+    }
+
     protected double evaluate(double value) {
         return value * this.amplitude;
     }
@@ -4,15 +4,33 @@ import java.util.Random;
 
 public class RidgeNoiseSampler extends PerlinNoiseSampler {
     private final double exponent;
+    private final int integerExponent;
 
     public RidgeNoiseSampler(Random random, double exponent) {
         super(random);
         this.exponent = exponent;
+        this.integerExponent = exponent == Math.rint(exponent) && exponent >= 1.0 && exponent <= 4.0 ? (int) exponent : 0;
     }
 
     @Override
     protected double evaluate(double value) {
-        double ridged = Math.pow(1.0 - Math.abs(value), this.exponent) * 2.0 - 0.5;
+        double ridged = this.ridge(1.0 - Math.abs(value)) * 2.0 - 0.5;
         return ridged * this.amplitude;
     }
+
+    private double ridge(double value) {
+        switch (this.integerExponent) {
+            case 1:
+                return value;
+            case 2:
+                return value * value;
+            case 3:
+                return value * value * value;
+            case 4:
+                double squared = value * value;
+                return squared * squared;
+            default:
+                return Math.pow(value, this.exponent);
+        }
+    }
 }
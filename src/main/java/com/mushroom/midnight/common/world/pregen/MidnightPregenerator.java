@@ -0,0 +1,288 @@
+package com.mushroom.midnight.common.world.pregen;
+
+import com.mojang.datafixers.util.Either;
+import com.mushroom.midnight.Midnight;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.nbt.CompressedStreamTools;
+import net.minecraft.util.Util;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.chunk.ChunkStatus;
+import net.minecraft.world.chunk.IChunk;
+import net.minecraft.world.server.ChunkHolder;
+import net.minecraft.world.server.ServerChunkProvider;
+import net.minecraft.world.server.ServerWorld;
+import net.minecraft.world.server.TicketType;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Drives chunk generation over a {@link PregenArea} without any players present. Chunks are requested through the
+ * vanilla chunk manager so that generation is spread over the worldgen executor, while a bounded number of requests
+ * are kept in flight at a time. Progress is written to a checkpoint file so that generation can resume after a pause
+ * or a server restart.
+ */
+public class MidnightPregenerator {
+    private static final TicketType<ChunkPos> TICKET = TicketType.create("midnight_pregen", Comparator.comparingLong(ChunkPos::asLong));
+
+    private static final long REPORT_INTERVAL = 10 * 1000;
+    private static final long CHECKPOINT_INTERVAL = 60 * 1000;
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final ServerWorld world;
+    private final PregenArea area;
+    private final File checkpointFile;
+    private final int maxInFlight;
+
+    private final Deque<Request> inFlight = new ArrayDeque<>();
+
+    private long cursor;
+    private long completedBeforeCursor;
+    private int completedInFlight;
+
+    private boolean paused;
+
+    private long lastReportTime;
+    private long lastReportCompleted;
+    private double chunksPerSecond;
+
+    private long lastCheckpointTime;
+
+    private MidnightPregenerator(ServerWorld world, PregenArea area, File checkpointFile, long cursor, long completed) {
+        this.world = world;
+        this.area = area;
+        this.checkpointFile = checkpointFile;
+        this.maxInFlight = Runtime.getRuntime().availableProcessors() * 4;
+
+        this.cursor = cursor;
+        this.completedBeforeCursor = completed;
+
+        this.lastReportTime = this.lastCheckpointTime = Util.milliTime();
+        this.lastReportCompleted = completed;
+    }
+
+    public static MidnightPregenerator create(ServerWorld world, PregenArea area) {
+        return new MidnightPregenerator(world, area, getCheckpointFile(world), 0, 0);
+    }
+
+    @Nullable
+    public static MidnightPregenerator loadCheckpoint(ServerWorld world) {
+        File file = getCheckpointFile(world);
+        if (!file.exists()) {
+            return null;
+        }
+
+        try (InputStream input = new FileInputStream(file)) {
+            CompoundNBT compound = CompressedStreamTools.readCompressed(input);
+            PregenArea area = PregenArea.deserialize(compound.getCompound("area"));
+
+            MidnightPregenerator pregenerator = new MidnightPregenerator(world, area, file, compound.getLong("cursor"), compound.getLong("completed"));
+            pregenerator.paused = true;
+            return pregenerator;
+        } catch (IOException e) {
+            Midnight.LOGGER.error("Failed to read pregeneration checkpoint from {}", file, e);
+            return null;
+        }
+    }
+
+    private static File getCheckpointFile(ServerWorld world) {
+        File worldDirectory = world.getSaveHandler().getWorldDirectory();
+        File dimensionDirectory = world.dimension.getType().getDirectory(worldDirectory);
+        return new File(dimensionDirectory, "midnight_pregen.dat");
+    }
+
+    /**
+     * @return true once every chunk in the area has been generated
+     */
+    public boolean tick() {
+        this.drainCompleted();
+
+        if (!this.paused) {
+            this.submitRequests();
+        }
+
+        long time = Util.milliTime();
+        if (time - this.lastReportTime >= REPORT_INTERVAL) {
+            this.updateRate(time);
+            if (!this.paused) {
+                Midnight.LOGGER.info(this.describeProgress());
+            }
+        }
+
+        if (this.isComplete()) {
+            Midnight.LOGGER.info("Finished pregenerating {} chunks in {}", this.area.getChunkCount(), this.area);
+            this.deleteCheckpoint();
+            return true;
+        }
+
+        if (time - this.lastCheckpointTime >= CHECKPOINT_INTERVAL) {
+            this.saveCheckpoint();
+        }
+
+        return false;
+    }
+
+    private void drainCompleted() {
+        while (!this.inFlight.isEmpty() && this.inFlight.peekFirst().done) {
+            this.inFlight.pollFirst();
+            this.completedBeforeCursor++;
+            this.completedInFlight--;
+        }
+    }
+
+    private void submitRequests() {
+        ServerChunkProvider chunkProvider = this.world.getChunkProvider();
+
+        for (Request request : this.inFlight) {
+            if (request.retry) {
+                request.retry = false;
+                this.submit(chunkProvider, request);
+            }
+        }
+
+        long limit = this.area.getCursorLimit();
+        while (this.inFlight.size() < this.maxInFlight && this.cursor < limit) {
+            long cursor = this.cursor++;
+            if (!this.area.contains(cursor)) {
+                continue;
+            }
+
+            Request request = new Request(cursor, this.area.getChunk(cursor));
+            this.inFlight.addLast(request);
+            this.submit(chunkProvider, request);
+        }
+    }
+
+    private void submit(ServerChunkProvider chunkProvider, Request request) {
+        ChunkPos pos = request.pos;
+        chunkProvider.registerTicket(TICKET, pos, 0, pos);
+        request.attempts++;
+
+        CompletableFuture<Either<IChunk, ChunkHolder.IChunkLoadingError>> future = chunkProvider.func_217233_c(pos.x, pos.z, ChunkStatus.FULL, true);
+        future.whenCompleteAsync((result, throwable) -> {
+            chunkProvider.releaseTicket(TICKET, pos, 0, pos);
+
+            Optional<ChunkHolder.IChunkLoadingError> error = result != null ? result.right() : Optional.empty();
+            if (throwable != null || error.isPresent()) {
+                String reason = throwable != null ? throwable.toString() : error.get().toString();
+                if (request.attempts < MAX_ATTEMPTS) {
+                    Midnight.LOGGER.warn("Failed to pregenerate chunk at {} ({}), retrying (attempt {}/{})", pos, reason, request.attempts, MAX_ATTEMPTS);
+                    request.retry = true;
+                    return;
+                }
+                Midnight.LOGGER.error("Failed to pregenerate chunk at {} after {} attempts ({}), skipping it", pos, request.attempts, reason, throwable);
+            }
+
+            request.done = true;
+            this.completedInFlight++;
+        }, this.world.getServer());
+    }
+
+    private void updateRate(long time) {
+        long completed = this.getCompletedCount();
+        double seconds = (time - this.lastReportTime) / 1000.0;
+        this.chunksPerSecond = (completed - this.lastReportCompleted) / seconds;
+
+        this.lastReportTime = time;
+        this.lastReportCompleted = completed;
+    }
+
+    public void pause() {
+        this.paused = true;
+        this.saveCheckpoint();
+    }
+
+    public void resume() {
+        this.paused = false;
+        this.lastReportTime = Util.milliTime();
+        this.lastReportCompleted = this.getCompletedCount();
+    }
+
+    public void cancel() {
+        this.paused = true;
+        this.deleteCheckpoint();
+    }
+
+    public void saveCheckpoint() {
+        CompoundNBT compound = new CompoundNBT();
+        compound.put("area", this.area.serialize(new CompoundNBT()));
+
+        // requests still in flight are not known to be complete, so resume from the oldest of them
+        Request oldest = this.inFlight.peekFirst();
+        compound.putLong("cursor", oldest != null ? oldest.cursor : this.cursor);
+        compound.putLong("completed", this.completedBeforeCursor);
+
+        try (OutputStream output = new FileOutputStream(this.checkpointFile)) {
+            CompressedStreamTools.writeCompressed(compound, output);
+        } catch (IOException e) {
+            Midnight.LOGGER.error("Failed to write pregeneration checkpoint to {}", this.checkpointFile, e);
+        }
+
+        this.lastCheckpointTime = Util.milliTime();
+    }
+
+    private void deleteCheckpoint() {
+        if (this.checkpointFile.exists() && !this.checkpointFile.delete()) {
+            Midnight.LOGGER.warn("Failed to delete pregeneration checkpoint {}", this.checkpointFile);
+        }
+    }
+
+    public boolean isPaused() {
+        return this.paused;
+    }
+
+    public boolean isComplete() {
+        return this.cursor >= this.area.getCursorLimit() && this.inFlight.isEmpty();
+    }
+
+    public long getCompletedCount() {
+        return this.completedBeforeCursor + this.completedInFlight;
+    }
+
+    public ServerWorld getWorld() {
+        return this.world;
+    }
+
+    public PregenArea getArea() {
+        return this.area;
+    }
+
+    public String describeProgress() {
+        long total = this.area.getChunkCount();
+        long completed = this.getCompletedCount();
+        double percent = completed * 100.0 / total;
+
+        String eta = "unknown";
+        if (this.chunksPerSecond > 0.0) {
+            long seconds = (long) ((total - completed) / this.chunksPerSecond);
+            eta = String.format("%dh %02dm %02ds", seconds / 3600, (seconds / 60) % 60, seconds % 60);
+        }
+
+        return String.format("Pregenerated %d/%d chunks (%.2f%%) at %.1f chunks/s, ETA %s%s", completed, total, percent, this.chunksPerSecond, eta, this.paused ? " (paused)" : "");
+    }
+
+    private static class Request {
+        final long cursor;
+        final ChunkPos pos;
+
+        int attempts;
+        boolean retry;
+        boolean done;
+
+        Request(long cursor, ChunkPos pos) {
+            this.cursor = cursor;
+            this.pos = pos;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.mushroom.midnight.common.world.pregen;
+
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.util.math.ChunkPos;
+
+/**
+ * A rectangle of chunks to pregenerate. Chunks are visited tile by tile, where tiles line up with region files, and
+ * tiles are walked in a serpentine order so that consecutive chunks stay spatially close to each other.
+ */
+public final class PregenArea {
+    private static final int TILE_BITS = 5;
+    private static final int TILE_SIZE = 1 << TILE_BITS;
+    private static final int TILE_MASK = TILE_SIZE - 1;
+    private static final int TILE_AREA = TILE_SIZE * TILE_SIZE;
+
+    private final int minX;
+    private final int minZ;
+    private final int maxX;
+    private final int maxZ;
+
+    private final int minTileX;
+    private final int minTileZ;
+    private final int tilesX;
+    private final int tilesZ;
+
+    private PregenArea(int minX, int minZ, int maxX, int maxZ) {
+        this.minX = Math.min(minX, maxX);
+        this.minZ = Math.min(minZ, maxZ);
+        this.maxX = Math.max(minX, maxX);
+        this.maxZ = Math.max(minZ, maxZ);
+
+        this.minTileX = this.minX >> TILE_BITS;
+        this.minTileZ = this.minZ >> TILE_BITS;
+        this.tilesX = (this.maxX >> TILE_BITS) - this.minTileX + 1;
+        this.tilesZ = (this.maxZ >> TILE_BITS) - this.minTileZ + 1;
+    }
+
+    public static PregenArea radius(int centerX, int centerZ, int radius) {
+        return corners(centerX - radius, centerZ - radius, centerX + radius, centerZ + radius);
+    }
+
+    public static PregenArea corners(int x1, int z1, int x2, int z2) {
+        return new PregenArea(x1 >> 4, z1 >> 4, x2 >> 4, z2 >> 4);
+    }
+
+    public long getChunkCount() {
+        return (long) (this.maxX - this.minX + 1) * (this.maxZ - this.minZ + 1);
+    }
+
+    public long getCursorLimit() {
+        return (long) this.tilesX * this.tilesZ * TILE_AREA;
+    }
+
+    public boolean contains(int chunkX, int chunkZ) {
+        return chunkX >= this.minX && chunkZ >= this.minZ && chunkX <= this.maxX && chunkZ <= this.maxZ;
+    }
+
+    public int getChunkX(long cursor) {
+        int tileIndex = (int) (cursor / TILE_AREA);
+        int tileRow = tileIndex / this.tilesX;
+        int tileColumn = tileIndex % this.tilesX;
+        if ((tileRow & 1) == 1) {
+            tileColumn = this.tilesX - 1 - tileColumn;
+        }
+
+        int local = (int) (cursor % TILE_AREA);
+        return ((this.minTileX + tileColumn) << TILE_BITS) + (local & TILE_MASK);
+    }
+
+    public int getChunkZ(long cursor) {
+        int tileIndex = (int) (cursor / TILE_AREA);
+        int tileRow = tileIndex / this.tilesX;
+
+        int local = (int) (cursor % TILE_AREA);
+        return ((this.minTileZ + tileRow) << TILE_BITS) + (local >> TILE_BITS);
+    }
+
+    public boolean contains(long cursor) {
+        return this.contains(this.getChunkX(cursor), this.getChunkZ(cursor));
+    }
+
+    public ChunkPos getChunk(long cursor) {
+        return new ChunkPos(this.getChunkX(cursor), this.getChunkZ(cursor));
+    }
+
+    public CompoundNBT serialize(CompoundNBT compound) {
+        compound.putInt("min_x", this.minX);
+        compound.putInt("min_z", this.minZ);
+        compound.putInt("max_x", this.maxX);
+        compound.putInt("max_z", this.maxZ);
+        return compound;
+    }
+
+    public static PregenArea deserialize(CompoundNBT compound) {
+        return new PregenArea(compound.getInt("min_x"), compound.getInt("min_z"), compound.getInt("max_x"), compound.getInt("max_z"));
+    }
+
+    @Override
+    public String toString() {
+        return "[" + (this.minX << 4) + ", " + (this.minZ << 4) + "] -> [" + ((this.maxX << 4) + 15) + ", " + ((this.maxZ << 4) + 15) + "]";
+    }
+}
@@ -0,0 +1,135 @@
+package com.mushroom.midnight.common.world.pregen;
+
+import com.mushroom.midnight.Midnight;
+import com.mushroom.midnight.common.registry.MidnightDimensions;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.dimension.DimensionType;
+import net.minecraft.world.server.ServerWorld;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.event.server.FMLServerStartedEvent;
+import net.minecraftforge.fml.event.server.FMLServerStoppingEvent;
+
+import javax.annotation.Nullable;
+
+/**
+ * Owns the active {@link MidnightPregenerator} for the running server.
+ * <p>
+ * Besides the {@code /midnight pregen} command, pregeneration can be started headlessly by launching the server with
+ * {@code -Dmidnight.pregen=<radius>} or {@code -Dmidnight.pregen=<x1>,<z1>,<x2>,<z2>} (block coordinates). A pending
+ * checkpoint takes priority over the property, and {@code -Dmidnight.pregen.shutdown=true} stops the server once
+ * generation has finished.
+ */
+@Mod.EventBusSubscriber(modid = Midnight.MODID)
+public final class PregenHandler {
+    private static final String PREGEN_PROPERTY = "midnight.pregen";
+    private static final String SHUTDOWN_PROPERTY = "midnight.pregen.shutdown";
+
+    private static MidnightPregenerator active;
+    private static boolean shutdownOnComplete;
+
+    private PregenHandler() {
+    }
+
+    @SubscribeEvent
+    public static void onServerStarted(FMLServerStartedEvent event) {
+        ServerWorld world = getMidnightWorld(event.getServer());
+        if (world == null) {
+            return;
+        }
+
+        active = MidnightPregenerator.loadCheckpoint(world);
+        if (active != null) {
+            Midnight.LOGGER.info("Found pregeneration checkpoint for {}, use /midnight pregen resume to continue", active.getArea());
+        }
+
+        String batch = System.getProperty(PREGEN_PROPERTY);
+        if (batch != null) {
+            if (active == null) {
+                PregenArea area = parseArea(batch);
+                if (area == null) {
+                    Midnight.LOGGER.error("Invalid value '{}' for {}, expected <radius> or <x1>,<z1>,<x2>,<z2>", batch, PREGEN_PROPERTY);
+                    return;
+                }
+                active = MidnightPregenerator.create(world, area);
+            }
+
+            active.resume();
+            shutdownOnComplete = Boolean.getBoolean(SHUTDOWN_PROPERTY);
+
+            Midnight.LOGGER.info("Pregenerating {} chunks in {}", active.getArea().getChunkCount(), active.getArea());
+        }
+    }
+
+    @SubscribeEvent
+    public static void onServerStopping(FMLServerStoppingEvent event) {
+        if (active != null) {
+            active.pause();
+            active = null;
+        }
+        shutdownOnComplete = false;
+    }
+
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase != TickEvent.Phase.END || active == null) {
+            return;
+        }
+
+        if (active.tick()) {
+            MinecraftServer server = active.getWorld().getServer();
+            active = null;
+
+            if (shutdownOnComplete) {
+                server.initiateShutdown(false);
+            }
+        }
+    }
+
+    public static boolean start(ServerWorld world, PregenArea area) {
+        if (active != null) {
+            return false;
+        }
+
+        active = MidnightPregenerator.create(world, area);
+        active.resume();
+        return true;
+    }
+
+    @Nullable
+    public static MidnightPregenerator getActive() {
+        return active;
+    }
+
+    public static void cancel() {
+        if (active != null) {
+            active.cancel();
+            active = null;
+        }
+    }
+
+    @Nullable
+    public static ServerWorld getMidnightWorld(MinecraftServer server) {
+        DimensionType dimension = MidnightDimensions.midnight();
+        return dimension != null ? server.getWorld(dimension) : null;
+    }
+
+    @Nullable
+    private static PregenArea parseArea(String value) {
+        try {
+            String[] parts = value.split(",");
+            if (parts.length == 1) {
+                return PregenArea.radius(0, 0, Integer.parseInt(parts[0].trim()));
+            } else if (parts.length == 4) {
+                return PregenArea.corners(
+                        Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()),
+                        Integer.parseInt(parts[2].trim()), Integer.parseInt(parts[3].trim())
+                );
+            }
+        } catch (NumberFormatException e) {
+            // fall through to report the invalid value
+        }
+        return null;
+    }
+}
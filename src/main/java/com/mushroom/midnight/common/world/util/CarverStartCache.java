@@ -0,0 +1,86 @@
+package com.mushroom.midnight.common.world.util;
+
+import com.mushroom.midnight.common.world.generator.MidnightCaveCarver;
+import net.minecraft.world.gen.carver.ConfiguredCarver;
+
+import javax.annotation.Nullable;
+
+/**
+ * Caches whether each carver starts in a given origin chunk, along with the recorded tunnel path when it does. Every
+ * chunk checks the 17x17 origins around it, so without this each decision and tunnel walk would be repeated by up to
+ * 289 chunks. Like {@link ChunkBiomeCache}, entries are held in a {@link StripedLruCache}. The cache belongs to
+ * a single chunk generator, so the world seed is implied.
+ */
+public class CarverStartCache {
+    private final StripedLruCache<Key, Start> starts;
+
+    public CarverStartCache(int capacity) {
+        this.starts = new StripedLruCache<>(capacity);
+    }
+
+    @Nullable
+    public Start get(ConfiguredCarver<?> carver, int index, int originX, int originZ) {
+        return this.starts.get(new Key(carver, index, originX, originZ));
+    }
+
+    public void put(ConfiguredCarver<?> carver, int index, int originX, int originZ, Start start) {
+        this.starts.put(new Key(carver, index, originX, originZ), start);
+    }
+
+    public void invalidate() {
+        this.starts.invalidate();
+    }
+
+    public static class Start {
+        public static final Start NONE = new Start(null);
+
+        @Nullable
+        private final MidnightCaveCarver.TunnelPath path;
+
+        public Start(@Nullable MidnightCaveCarver.TunnelPath path) {
+            this.path = path;
+        }
+
+        /**
+         * @return the recorded tunnels from this origin, or null if the carver does not start here
+         */
+        @Nullable
+        public MidnightCaveCarver.TunnelPath getPath() {
+            return this.path;
+        }
+    }
+
+    private static class Key {
+        private final ConfiguredCarver<?> carver;
+        private final int index;
+        private final int originX;
+        private final int originZ;
+        private final int hash;
+
+        Key(ConfiguredCarver<?> carver, int index, int originX, int originZ) {
+            this.carver = carver;
+            this.index = index;
+            this.originX = originX;
+            this.originZ = originZ;
+
+            int hash = System.identityHashCode(carver);
+            hash = 31 * hash + index;
+            hash = 31 * hash + originX;
+            hash = 31 * hash + originZ;
+            this.hash = hash ^ (hash >>> 16);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof Key)) return false;
+            Key key = (Key) obj;
+            return this.carver == key.carver && this.index == key.index && this.originX == key.originX && this.originZ == key.originZ;
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.mushroom.midnight.common.world.util;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.IChunk;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+/**
+ * Per-thread map of the cave floor in each column of the chunk being decorated: the lowest open block within a
+ * vertical range. Columns are scanned directly through the chunk sections the first time they are queried, and the
+ * result, including a column without any floor, is cached until the column is written to through a
+ * {@link SectionBlockWriter}.
+ * <p>
+ * The cache is best-effort: writes made through the world, such as those of most features, are not observed. A cached
+ * floor is only checked to still be open and to still rest on a blocking state, so once such a write opens a lower
+ * floor or fills a column without any floor, queries may return a different floor than a fresh scan would.
+ */
+public final class CaveFloorMap {
+    public static final int NONE = -1;
+
+    private static final short UNKNOWN = -2;
+
+    private static final BlockState AIR = Blocks.AIR.getDefaultState();
+
+    private static final ThreadLocal<CaveFloorMap> CURRENT = ThreadLocal.withInitial(CaveFloorMap::new);
+
+    private final short[] floors = new short[256];
+
+    private boolean active;
+    private long chunkKey;
+
+    private CaveFloorMap() {
+    }
+
+    public static void begin(int chunkX, int chunkZ) {
+        CaveFloorMap map = CURRENT.get();
+        map.active = true;
+        map.chunkKey = ChunkPos.asLong(chunkX, chunkZ);
+        Arrays.fill(map.floors, UNKNOWN);
+    }
+
+    public static void end() {
+        CURRENT.get().active = false;
+    }
+
+    /**
+     * @return the map for the given chunk, or null if that chunk is not currently being decorated on this thread
+     */
+    @Nullable
+    public static CaveFloorMap get(IChunk chunk) {
+        CaveFloorMap map = CURRENT.get();
+        if (map.active && map.chunkKey == chunk.getPos().asLong()) {
+            return map;
+        }
+        return null;
+    }
+
+    /**
+     * Finds the lowest y in [minY, maxY) whose state does not match the given predicate. The predicate, minY and
+     * maxY must be the same for every query between {@link #begin} and {@link #end}.
+     *
+     * @return the floor y, or {@link #NONE} if every block in the range matches the predicate
+     */
+    public int getFloor(IChunk chunk, int localX, int localZ, int minY, int maxY, Predicate<BlockState> predicate) {
+        ChunkSection[] sections = chunk.getSections();
+        int index = localX + localZ * 16;
+
+        int floor = this.floors[index];
+        if (floor == UNKNOWN || floor != NONE && !isFloor(sections, localX, floor, localZ, minY, predicate)) {
+            floor = scan(sections, localX, localZ, minY, maxY, predicate);
+            this.floors[index] = (short) floor;
+        }
+
+        return floor;
+    }
+
+    /**
+     * Forgets the floor of a column that was just written to.
+     */
+    public void invalidate(int localX, int localZ) {
+        this.floors[localX + localZ * 16] = UNKNOWN;
+    }
+
+    private static boolean isFloor(ChunkSection[] sections, int x, int y, int z, int minY, Predicate<BlockState> predicate) {
+        if (predicate.test(getState(sections, x, y, z))) {
+            return false;
+        }
+        return y == minY || predicate.test(getState(sections, x, y - 1, z));
+    }
+
+    private static int scan(ChunkSection[] sections, int x, int z, int minY, int maxY, Predicate<BlockState> predicate) {
+        for (int y = minY; y < maxY; y++) {
+            if (!predicate.test(getState(sections, x, y, z))) {
+                return y;
+            }
+        }
+        return NONE;
+    }
+
+    private static BlockState getState(ChunkSection[] sections, int x, int y, int z) {
+        ChunkSection section = sections[y >> 4];
+        return ChunkSection.isEmpty(section) ? AIR : section.getBlockState(x, y & 15, z);
+    }
+}
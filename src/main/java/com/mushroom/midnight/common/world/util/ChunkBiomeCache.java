@@ -0,0 +1,88 @@
+package com.mushroom.midnight.common.world.util;
+
+import com.mushroom.midnight.common.biome.BiomeLayer;
+import com.mushroom.midnight.common.biome.cavern.CavernousBiome;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.biome.Biome;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caches the block-resolution surface and cavernous biomes of whole chunks so that surface building, carving,
+ * decoration and spawning share one layer lookup per chunk. Entries are held in a {@link StripedLruCache} so that
+ * concurrent worldgen threads rarely contend.
+ */
+public class ChunkBiomeCache {
+    private final BiomeLayer<Biome> surfaceLayer;
+    private final BiomeLayer<CavernousBiome> cavernLayer;
+
+    private final StripedLruCache<Long, Entry> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public ChunkBiomeCache(BiomeLayer<Biome> surfaceLayer, BiomeLayer<CavernousBiome> cavernLayer, int capacity) {
+        this.surfaceLayer = surfaceLayer;
+        this.cavernLayer = cavernLayer;
+        this.entries = new StripedLruCache<>(capacity);
+    }
+
+    public Entry get(int chunkX, int chunkZ) {
+        long key = ChunkPos.asLong(chunkX, chunkZ);
+
+        Entry entry = this.entries.get(key);
+        if (entry != null) {
+            this.hits.increment();
+            return entry;
+        }
+
+        this.misses.increment();
+
+        // sample outside of the lock: a racing thread may compute the same chunk, but both results are identical
+        int minX = chunkX << 4;
+        int minZ = chunkZ << 4;
+        entry = new Entry(this.surfaceLayer.sample(minX, minZ, 16, 16), this.cavernLayer.sample(minX, minZ, 16, 16));
+
+        this.entries.put(key, entry);
+
+        return entry;
+    }
+
+    public Biome getSurfaceBiome(int x, int z) {
+        return this.get(x >> 4, z >> 4).getSurfaceBiome(x, z);
+    }
+
+    public CavernousBiome getCavernousBiome(int x, int z) {
+        return this.get(x >> 4, z >> 4).getCavernousBiome(x, z);
+    }
+
+    public void invalidate() {
+        this.entries.invalidate();
+    }
+
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+    public long getMisses() {
+        return this.misses.sum();
+    }
+
+    public static class Entry {
+        private final Biome[] surface;
+        private final CavernousBiome[] cavern;
+
+        Entry(Biome[] surface, CavernousBiome[] cavern) {
+            this.surface = surface;
+            this.cavern = cavern;
+        }
+
+        public Biome getSurfaceBiome(int x, int z) {
+            return this.surface[(x & 15) + (z & 15) * 16];
+        }
+
+        public CavernousBiome getCavernousBiome(int x, int z) {
+            return this.cavern[(x & 15) + (z & 15) * 16];
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.mushroom.midnight.common.world.util;
+
+import net.minecraft.world.IWorld;
+import net.minecraft.world.chunk.IChunk;
+import net.minecraft.world.gen.Heightmap;
+import net.minecraft.world.gen.WorldGenRegion;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+/**
+ * Lowest {@link Heightmap.Type#OCEAN_FLOOR_WG} height of whole chunks, as {@link IWorld#getHeight} would report it for
+ * their columns. The last few chunks queried are remembered along with a copy of the heightmap data the height was
+ * taken from, and an entry is only reused while the chunk's heightmap still holds exactly that data. Instances are not
+ * thread-safe and are meant to be held per thread.
+ */
+public class ChunkFloorHeights {
+    public static final int UNKNOWN = Integer.MIN_VALUE;
+
+    private static final Heightmap.Type TYPE = Heightmap.Type.OCEAN_FLOOR_WG;
+    private static final int CAPACITY = 16;
+
+    private final long[] keys = new long[CAPACITY];
+    private final long[][] snapshots = new long[CAPACITY][];
+    private final int[] heights = new int[CAPACITY];
+    private int next;
+
+    /**
+     * Returns a lower bound for the floor height of every column in the given range, or {@link #UNKNOWN} if any chunk
+     * it covers is not available. Only regions of generating chunks are handled, since complete chunks no longer keep
+     * worldgen heightmaps.
+     */
+    public int getMinHeight(IWorld world, int minX, int minZ, int maxX, int maxZ) {
+        if (!(world instanceof WorldGenRegion)) {
+            return UNKNOWN;
+        }
+
+        ChunkSource chunks = (chunkX, chunkZ) -> world.chunkExists(chunkX, chunkZ) ? world.getChunk(chunkX, chunkZ) : null;
+        return this.getMinHeight(chunks, minX, minZ, maxX, maxZ);
+    }
+
+    public int getMinHeight(ChunkSource chunks, int minX, int minZ, int maxX, int maxZ) {
+        int minHeight = Integer.MAX_VALUE;
+        for (int chunkZ = minZ >> 4; chunkZ <= maxZ >> 4; chunkZ++) {
+            for (int chunkX = minX >> 4; chunkX <= maxX >> 4; chunkX++) {
+                IChunk chunk = chunks.getChunk(chunkX, chunkZ);
+                if (chunk == null) {
+                    return UNKNOWN;
+                }
+                minHeight = Math.min(minHeight, this.getChunkHeight(chunk));
+            }
+        }
+
+        return minHeight;
+    }
+
+    public int getChunkHeight(IChunk chunk) {
+        // makes sure the heightmap has been computed before its data is read
+        chunk.getTopBlockY(TYPE, 0, 0);
+        Heightmap heightmap = chunk.getHeightmap(TYPE);
+        long[] data = heightmap.getDataArray();
+
+        long key = chunk.getPos().asLong();
+        int slot = -1;
+        for (int i = 0; i < CAPACITY; i++) {
+            if (this.snapshots[i] != null && this.keys[i] == key) {
+                if (Arrays.equals(this.snapshots[i], data)) {
+                    return this.heights[i];
+                }
+                // the chunk changed since, so its old entry is replaced
+                slot = i;
+                break;
+            }
+        }
+
+        int height = Integer.MAX_VALUE;
+        for (int localZ = 0; localZ < 16; localZ++) {
+            for (int localX = 0; localX < 16; localX++) {
+                height = Math.min(height, heightmap.getHeight(localX, localZ));
+            }
+        }
+
+        if (slot == -1) {
+            slot = this.next;
+            this.next = (slot + 1) % CAPACITY;
+        }
+        this.keys[slot] = key;
+        this.snapshots[slot] = data.clone();
+        this.heights[slot] = height;
+
+        return height;
+    }
+
+    public interface ChunkSource {
+        @Nullable
+        IChunk getChunk(int chunkX, int chunkZ);
+    }
+}
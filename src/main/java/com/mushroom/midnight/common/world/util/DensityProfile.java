@@ -0,0 +1,85 @@
+package com.mushroom.midnight.common.world.util;
+
+/**
+ * Allocation-free equivalent of a {@link com.mushroom.midnight.common.util.RegionInterpolator} with a linear curve,
+ * evaluated for a whole column at once. Regions are stored in primitive arrays so that a single profile can be reused
+ * for every column of a chunk.
+ */
+public class DensityProfile {
+    private final double[] starts;
+    private final double[] ends;
+    private final double[] densities;
+    private final double[] curveRanges;
+
+    private final double[] lowers;
+    private final double[] uppers;
+
+    private int count;
+
+    public DensityProfile(int capacity) {
+        this.starts = new double[capacity];
+        this.ends = new double[capacity];
+        this.densities = new double[capacity];
+        this.curveRanges = new double[capacity];
+
+        this.lowers = new double[capacity];
+        this.uppers = new double[capacity];
+    }
+
+    public void clear() {
+        this.count = 0;
+    }
+
+    public void add(double start, double end, double density, double curveRange) {
+        int index = this.count++;
+        this.starts[index] = start;
+        this.ends[index] = end;
+        this.densities[index] = density;
+        this.curveRanges[index] = curveRange;
+    }
+
+    /**
+     * Writes the profile density at y = 0 until height into the given column.
+     */
+    public void evaluate(double[] column, int height) {
+        int lastTransition = this.count - 2;
+        if (lastTransition < 0) {
+            throw new IllegalStateException("Density profile needs at least two regions");
+        }
+
+        boolean sorted = true;
+        for (int n = 0; n <= lastTransition; n++) {
+            this.lowers[n] = Math.max(this.starts[n], this.ends[n] - this.curveRanges[n]);
+            this.uppers[n] = Math.min(this.ends[n + 1], this.starts[n + 1] + this.curveRanges[n + 1]);
+            if (n > 0 && this.uppers[n] < this.uppers[n - 1]) {
+                sorted = false;
+            }
+        }
+
+        if (sorted) {
+            // with sorted transitions the active one only ever moves upwards, so we never need to rescan
+            int n = 0;
+            for (int y = 0; y < height; y++) {
+                while (n < lastTransition && !(y < this.uppers[n])) {
+                    n++;
+                }
+                column[y] = this.interpolate(n, y);
+            }
+        } else {
+            for (int y = 0; y < height; y++) {
+                int n = 0;
+                while (n < lastTransition && !(y < this.uppers[n])) {
+                    n++;
+                }
+                column[y] = this.interpolate(n, y);
+            }
+        }
+    }
+
+    private double interpolate(int transition, double y) {
+        double lower = this.lowers[transition];
+        double upper = this.uppers[transition];
+        double t = y < lower ? 0.0 : y >= upper ? 1.0 : (y - lower) / (upper - lower);
+        return (1.0 - t) * this.densities[transition] + t * this.densities[transition + 1];
+    }
+}
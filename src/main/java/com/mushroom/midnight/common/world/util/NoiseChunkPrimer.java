@@ -6,6 +6,8 @@ import net.minecraft.world.chunk.ChunkPrimer;
 import net.minecraft.world.chunk.ChunkSection;
 import net.minecraft.world.gen.Heightmap;
 
+import java.util.Arrays;
+
 public class NoiseChunkPrimer {
     private final int horizontalGranularity;
     private final int verticalGranularity;
@@ -115,7 +117,200 @@ public class NoiseChunkPrimer {
         }
     }
 
+    /**
+     * Specialized variant of {@link #primeChunk(ChunkPrimer, double[], Handler)} for generators that only place a solid
+     * block where density is positive and a fluid within a fixed height range. Noise cells that are entirely solid or
+     * entirely open are filled without interpolating each block, and heightmaps are resolved once per column.
+     */
+    public void primeChunk(ChunkPrimer primer, double[] sampledNoise, DensityStates states) {
+        int sampleWidth = this.noiseWidth + 1;
+        int sampleHeight = this.noiseHeight + 1;
+
+        double noiseScaleXZ = 1.0 / this.horizontalGranularity;
+        double noiseScaleY = 1.0 / this.verticalGranularity;
+
+        int[] solidTops = new int[16 * 16];
+        int[] fluidTops = new int[16 * 16];
+        Arrays.fill(solidTops, -1);
+        Arrays.fill(fluidTops, -1);
+
+        for (int noiseZ = 0; noiseZ < this.noiseWidth; noiseZ++) {
+            int indexZ = noiseZ * sampleWidth;
+            int indexZDown = (noiseZ + 1) * sampleWidth;
+
+            for (int noiseX = 0; noiseX < this.noiseWidth; noiseX++) {
+                int indexX = (indexZ + noiseX) * sampleHeight;
+                int indexXRight = (indexZ + noiseX + 1) * sampleHeight;
+                int indexXDown = (indexZDown + noiseX) * sampleHeight;
+                int indexXDownRight = (indexZDown + noiseX + 1) * sampleHeight;
+
+                int minX = noiseX * this.horizontalGranularity;
+                int minZ = noiseZ * this.horizontalGranularity;
+
+                ChunkSection section = primer.getSection(15);
+                section.lock();
+
+                for (int noiseY = 0; noiseY < this.noiseHeight; noiseY++) {
+                    double valueOrigin = sampledNoise[indexX + noiseY];
+                    double valueDown = sampledNoise[indexXRight + noiseY];
+                    double valueRight = sampledNoise[indexXDown + noiseY];
+                    double valueDownRight = sampledNoise[indexXDownRight + noiseY];
+
+                    double valueOriginUp = sampledNoise[indexX + noiseY + 1];
+                    double valueDownUp = sampledNoise[indexXRight + noiseY + 1];
+                    double valueRightUp = sampledNoise[indexXDown + noiseY + 1];
+                    double valueDownRightUp = sampledNoise[indexXDownRight + noiseY + 1];
+
+                    int minY = noiseY * this.verticalGranularity;
+
+                    double minValue = Math.min(Math.min(Math.min(valueOrigin, valueDown), Math.min(valueRight, valueDownRight)), Math.min(Math.min(valueOriginUp, valueDownUp), Math.min(valueRightUp, valueDownRightUp)));
+                    if (minValue > 0.0) {
+                        section = this.fillCell(primer, section, states.solid, states.solidEmitsLight, solidTops, minX, minY, minZ, minY + this.verticalGranularity);
+                        continue;
+                    }
+
+                    double maxValue = Math.max(Math.max(Math.max(valueOrigin, valueDown), Math.max(valueRight, valueDownRight)), Math.max(Math.max(valueOriginUp, valueDownUp), Math.max(valueRightUp, valueDownRightUp)));
+                    if (maxValue <= 0.0) {
+                        int fluidMinY = Math.max(minY, states.minFluidY + 1);
+                        int fluidMaxY = Math.min(minY + this.verticalGranularity, states.maxFluidY);
+                        if (fluidMinY < fluidMaxY) {
+                            section = this.fillCell(primer, section, states.fluid, states.fluidEmitsLight, fluidTops, minX, fluidMinY, minZ, fluidMaxY);
+                        }
+                        continue;
+                    }
+
+                    double stepOrigin = (valueOriginUp - valueOrigin) * noiseScaleY;
+                    double stepDown = (valueDownUp - valueDown) * noiseScaleY;
+                    double stepRight = (valueRightUp - valueRight) * noiseScaleY;
+                    double stepDownRight = (valueDownRightUp - valueDownRight) * noiseScaleY;
+
+                    for (int intY = 0; intY < this.verticalGranularity; intY++) {
+                        double originZ = valueOrigin;
+                        double targetZ = valueDown;
+                        double verticalStepZ1 = (valueRight - valueOrigin) * noiseScaleXZ;
+                        double verticalStepZ2 = (valueDownRight - valueDown) * noiseScaleXZ;
+
+                        int y = minY + intY;
+                        boolean fluidLayer = y > states.minFluidY && y < states.maxFluidY;
+
+                        section = this.selectSection(primer, section, y);
+
+                        for (int intZ = 0; intZ < this.horizontalGranularity; intZ++) {
+                            double densityStep = (targetZ - originZ) * noiseScaleXZ;
+                            double density = originZ;
+
+                            int z = minZ + intZ;
+
+                            for (int intX = 0; intX < this.horizontalGranularity; intX++) {
+                                int x = minX + intX;
+
+                                if (density > 0.0) {
+                                    this.setState(primer, section, states.solid, states.solidEmitsLight, solidTops, x, y, z);
+                                } else if (fluidLayer) {
+                                    this.setState(primer, section, states.fluid, states.fluidEmitsLight, fluidTops, x, y, z);
+                                }
+
+                                density += densityStep;
+                            }
+
+                            originZ += verticalStepZ1;
+                            targetZ += verticalStepZ2;
+                        }
+
+                        valueOrigin += stepOrigin;
+                        valueDown += stepDown;
+                        valueRight += stepRight;
+                        valueDownRight += stepDownRight;
+                    }
+                }
+
+                section.unlock();
+            }
+        }
+
+        this.updateHeightmaps(primer, states, solidTops, fluidTops);
+    }
+
+    private ChunkSection fillCell(ChunkPrimer primer, ChunkSection section, BlockState state, boolean emitsLight, int[] tops, int minX, int minY, int minZ, int maxY) {
+        for (int y = minY; y < maxY; y++) {
+            section = this.selectSection(primer, section, y);
+            for (int z = minZ; z < minZ + this.horizontalGranularity; z++) {
+                for (int x = minX; x < minX + this.horizontalGranularity; x++) {
+                    this.setState(primer, section, state, emitsLight, tops, x, y, z);
+                }
+            }
+        }
+        return section;
+    }
+
+    private ChunkSection selectSection(ChunkPrimer primer, ChunkSection section, int y) {
+        int sectionY = y >> 4;
+        if (section.getYLocation() >> 4 != sectionY) {
+            section.unlock();
+            section = primer.getSection(sectionY);
+            section.lock();
+        }
+        return section;
+    }
+
+    private void setState(ChunkPrimer primer, ChunkSection section, BlockState state, boolean emitsLight, int[] tops, int x, int y, int z) {
+        int localX = x & 15;
+        int localZ = z & 15;
+
+        if (emitsLight) {
+            primer.addLightPosition(new BlockPos(x, y, z));
+        }
+
+        section.setBlockState(localX, y & 15, localZ, state, false);
+        tops[localX + localZ * 16] = y;
+    }
+
+    private void updateHeightmaps(ChunkPrimer primer, DensityStates states, int[] solidTops, int[] fluidTops) {
+        Heightmap oceanFloor = primer.getHeightmap(Heightmap.Type.OCEAN_FLOOR_WG);
+        Heightmap worldSurface = primer.getHeightmap(Heightmap.Type.WORLD_SURFACE_WG);
+
+        for (int localZ = 0; localZ < 16; localZ++) {
+            for (int localX = 0; localX < 16; localX++) {
+                int solidTop = solidTops[localX + localZ * 16];
+                if (solidTop >= 0) {
+                    oceanFloor.update(localX, solidTop, localZ, states.solid);
+                    worldSurface.update(localX, solidTop, localZ, states.solid);
+                }
+
+                int fluidTop = fluidTops[localX + localZ * 16];
+                if (fluidTop >= 0) {
+                    oceanFloor.update(localX, fluidTop, localZ, states.fluid);
+                    worldSurface.update(localX, fluidTop, localZ, states.fluid);
+                }
+            }
+        }
+    }
+
     public interface Handler {
         BlockState getState(double density, int x, int y, int z);
     }
+
+    public static class DensityStates {
+        final BlockState solid;
+        final BlockState fluid;
+        final int minFluidY;
+        final int maxFluidY;
+
+        final boolean solidEmitsLight;
+        final boolean fluidEmitsLight;
+
+        /**
+         * @param solid the state placed wherever density is positive
+         * @param fluid the state placed in open space strictly between minFluidY and maxFluidY
+         */
+        public DensityStates(BlockState solid, BlockState fluid, int minFluidY, int maxFluidY) {
+            this.solid = solid;
+            this.fluid = fluid;
+            this.minFluidY = minFluidY;
+            this.maxFluidY = maxFluidY;
+
+            this.solidEmitsLight = solid.getLightValue() > 0;
+            this.fluidEmitsLight = fluid.getLightValue() > 0;
+        }
+    }
 }
@@ -0,0 +1,72 @@
+package com.mushroom.midnight.common.world.util;
+
+import net.minecraft.util.math.ChunkPos;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caches 2D noise fields sampled over square regions of the noise grid. Each chunk samples one column past its own
+ * edges, so keying by region lets neighbouring chunks share those border columns instead of evaluating them twice.
+ * Like {@link ChunkBiomeCache}, entries are held in a {@link StripedLruCache}.
+ */
+public class NoiseFieldCache {
+    private final int regionSize;
+    private final int fieldCount;
+    private final Sampler sampler;
+
+    private final StripedLruCache<Long, double[]> regions;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public NoiseFieldCache(int regionSize, int fieldCount, Sampler sampler, int capacity) {
+        this.regionSize = regionSize;
+        this.fieldCount = fieldCount;
+        this.sampler = sampler;
+        this.regions = new StripedLruCache<>(capacity);
+    }
+
+    /**
+     * Returns the fields of the given region, laid out field by field with each field in rows of {@code regionSize}
+     * values. The returned array is shared and must not be modified.
+     */
+    public double[] get(int regionX, int regionZ) {
+        long key = ChunkPos.asLong(regionX, regionZ);
+
+        double[] fields = this.regions.get(key);
+        if (fields != null) {
+            this.hits.increment();
+            return fields;
+        }
+
+        this.misses.increment();
+
+        // sample outside of the lock: a racing thread may compute the same region, but both results are identical
+        fields = new double[this.fieldCount * this.regionSize * this.regionSize];
+        this.sampler.sample(regionX * this.regionSize, regionZ * this.regionSize, this.regionSize, fields);
+
+        this.regions.put(key, fields);
+
+        return fields;
+    }
+
+    public int getRegionSize() {
+        return this.regionSize;
+    }
+
+    public void invalidate() {
+        this.regions.invalidate();
+    }
+
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+    public long getMisses() {
+        return this.misses.sum();
+    }
+
+    public interface Sampler {
+        void sample(int minX, int minZ, int size, double[] fields);
+    }
+}
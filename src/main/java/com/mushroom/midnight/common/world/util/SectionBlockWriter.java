@@ -0,0 +1,157 @@
+package com.mushroom.midnight.common.world.util;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.IWorld;
+import net.minecraft.world.chunk.ChunkPrimer;
+import net.minecraft.world.chunk.ChunkPrimerWrapper;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.IChunk;
+import net.minecraft.world.gen.Heightmap;
+
+import java.util.EnumSet;
+import java.util.Map;
+
+/**
+ * Reads and writes block states straight through the sections of chunks that are still generating, keeping their
+ * heightmaps in step the same way {@link ChunkPrimer#setBlockState} does. The current chunk is kept between calls, so
+ * runs of accesses within one chunk only resolve it once. Writes that are more than a plain state swap, and chunks
+ * that are not plain primers, go through the world instead. Instances are not thread-safe, but can be reused.
+ * <p>
+ * A writer can also be bound to a single chunk without any world, in which case every access must fall within that
+ * chunk and writes that cannot be made directly go through the chunk itself.
+ */
+public class SectionBlockWriter {
+    private static final BlockState AIR = Blocks.AIR.getDefaultState();
+    private static final BlockState VOID_AIR = Blocks.VOID_AIR.getDefaultState();
+
+    private final BlockPos.Mutable pos = new BlockPos.Mutable();
+
+    private IWorld world;
+    private int flags;
+
+    private IChunk chunk;
+    private int chunkX;
+    private int chunkZ;
+    private ChunkSection[] sections;
+    private Heightmap[] heightmaps;
+    private CaveFloorMap floorMap;
+
+    public SectionBlockWriter begin(IWorld world, int flags) {
+        this.world = world;
+        this.flags = flags;
+        this.chunk = null;
+        this.sections = null;
+        this.heightmaps = null;
+        this.floorMap = null;
+        return this;
+    }
+
+    public SectionBlockWriter begin(IChunk chunk) {
+        this.begin(null, 0);
+        this.setChunk(chunk, chunk.getPos().x, chunk.getPos().z);
+        return this;
+    }
+
+    /**
+     * Drops all references to the world, so that a writer held by a thread does not keep it alive.
+     */
+    public void end() {
+        this.begin(null, 0);
+    }
+
+    public BlockState getBlockState(int x, int y, int z) {
+        if (y < 0 || y >= 256) {
+            return VOID_AIR;
+        }
+
+        if (!this.moveTo(x, z)) {
+            this.pos.setPos(x, y, z);
+            return this.world != null ? this.world.getBlockState(this.pos) : this.chunk.getBlockState(this.pos);
+        }
+
+        ChunkSection section = this.sections[y >> 4];
+        return ChunkSection.isEmpty(section) ? AIR : section.getBlockState(x & 15, y & 15, z & 15);
+    }
+
+    /**
+     * @param currentState the state currently at this position, as returned by {@link #getBlockState}
+     */
+    public void setBlockState(int x, int y, int z, BlockState currentState, BlockState state) {
+        ChunkSection section = y >= 0 && y < 256 && this.moveTo(x, z) ? this.sections[y >> 4] : null;
+        this.pos.setPos(x, y, z);
+
+        if (this.floorMap != null) {
+            this.floorMap.invalidate(x & 15, z & 15);
+        }
+
+        if (ChunkSection.isEmpty(section) || !this.canWriteDirect(currentState, state)) {
+            if (this.world != null) {
+                this.world.setBlockState(this.pos, state, this.flags);
+            } else {
+                this.chunk.setBlockState(this.pos, state, false);
+            }
+            return;
+        }
+
+        section.setBlockState(x & 15, y & 15, z & 15, state, false);
+        for (Heightmap heightmap : this.heightmaps) {
+            heightmap.update(x & 15, y, z & 15, state);
+        }
+    }
+
+    private boolean moveTo(int x, int z) {
+        int chunkX = x >> 4;
+        int chunkZ = z >> 4;
+        if (this.chunk == null || this.chunkX != chunkX || this.chunkZ != chunkZ) {
+            if (this.world == null) {
+                throw new IllegalArgumentException("Position [" + x + ", " + z + "] is outside of the chunk being written");
+            }
+            this.setChunk(this.world.getChunk(chunkX, chunkZ), chunkX, chunkZ);
+        }
+        return this.sections != null;
+    }
+
+    private void setChunk(IChunk chunk, int chunkX, int chunkZ) {
+        this.chunk = chunk;
+        this.chunkX = chunkX;
+        this.chunkZ = chunkZ;
+
+        // wrapped chunks are already complete and silently discard writes made through them
+        if (chunk instanceof ChunkPrimer && !(chunk instanceof ChunkPrimerWrapper)) {
+            this.sections = chunk.getSections();
+            this.heightmaps = collectHeightmaps(chunk);
+            this.floorMap = CaveFloorMap.get(chunk);
+        } else {
+            this.sections = null;
+            this.heightmaps = null;
+            this.floorMap = null;
+        }
+    }
+
+    private boolean canWriteDirect(BlockState currentState, BlockState state) {
+        return !currentState.hasTileEntity() && !state.hasTileEntity()
+                && state.getFluidState().isEmpty()
+                && state.getLightValue(this.chunk, this.pos) == 0;
+    }
+
+    private static Heightmap[] collectHeightmaps(IChunk chunk) {
+        EnumSet<Heightmap.Type> types = chunk.getStatus().getHeightMaps();
+
+        EnumSet<Heightmap.Type> missing = EnumSet.copyOf(types);
+        for (Map.Entry<Heightmap.Type, Heightmap> entry : chunk.getHeightmaps()) {
+            missing.remove(entry.getKey());
+        }
+        if (!missing.isEmpty()) {
+            Heightmap.updateChunkHeightmaps(chunk, missing);
+        }
+
+        Heightmap[] heightmaps = new Heightmap[types.size()];
+        int i = 0;
+        for (Heightmap.Type type : types) {
+            heightmaps[i++] = chunk.getHeightmap(type);
+        }
+        return heightmaps;
+    }
+}
@@ -0,0 +1,39 @@
+package com.mushroom.midnight.common.world.util;
+
+import net.minecraft.world.gen.surfacebuilders.ConfiguredSurfaceBuilder;
+
+/**
+ * Tracks the seed a surface builder was last initialized with, so that seeding happens once per world rather than once
+ * per column. Seeding mutates the builder in place, and surface builders are shared by every biome and world using
+ * them, so this assumes a single seed per session: reseeding for another seed changes the builder under any worker
+ * still using it, just as seeding per column would.
+ */
+public final class SeededSurfaceBuilder {
+    private final ConfiguredSurfaceBuilder<?> builder;
+
+    private volatile long seed;
+    private volatile boolean seeded;
+
+    public SeededSurfaceBuilder(ConfiguredSurfaceBuilder<?> builder) {
+        this.builder = builder;
+    }
+
+    public ConfiguredSurfaceBuilder<?> get(long seed) {
+        if (!this.seeded || this.seed != seed) {
+            this.setSeed(seed);
+        }
+        return this.builder;
+    }
+
+    public synchronized void setSeed(long seed) {
+        if (this.seeded && this.seed == seed) {
+            return;
+        }
+
+        this.builder.setSeed(seed);
+
+        // publish the seed after seeding so that readers never skip a builder that is still being initialized
+        this.seed = seed;
+        this.seeded = true;
+    }
+}
@@ -0,0 +1,74 @@
+package com.mushroom.midnight.common.world.util;
+
+import com.mushroom.midnight.common.biome.cavern.CavernousBiome;
+import com.mushroom.midnight.common.world.MidnightChunkGenerator;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.biome.Biome;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Direct-mapped cache of the spawn tables for every column of recently queried chunks, for both the surface and the
+ * caverns. Once a chunk is cached, resolving the table for a position is a couple of array reads, with no allocation
+ * or biome sampling. Instances are not thread-safe and are meant to be held per thread.
+ */
+public class SpawnColumnCache {
+    private static final long EMPTY_KEY = Long.MIN_VALUE;
+
+    private final ChunkBiomeCache biomeCache;
+    private final Function<Biome, SpawnTable> surfaceTables;
+    private final Function<CavernousBiome, SpawnTable> cavernTables;
+
+    private final int mask;
+    private final long[] keys;
+    private final Column[] columns;
+
+    public SpawnColumnCache(ChunkBiomeCache biomeCache, Function<Biome, SpawnTable> surfaceTables, Function<CavernousBiome, SpawnTable> cavernTables, int capacity) {
+        this.biomeCache = biomeCache;
+        this.surfaceTables = surfaceTables;
+        this.cavernTables = cavernTables;
+
+        int size = Math.max(Integer.highestOneBit(Math.max(capacity, 1) - 1) << 1, 1);
+        this.mask = size - 1;
+        this.keys = new long[size];
+        this.columns = new Column[size];
+        Arrays.fill(this.keys, EMPTY_KEY);
+    }
+
+    public SpawnTable get(int x, int y, int z) {
+        int chunkX = x >> 4;
+        int chunkZ = z >> 4;
+
+        long key = ChunkPos.asLong(chunkX, chunkZ);
+        int slot = (int) (key ^ (key >>> 32)) & this.mask;
+
+        Column column = this.columns[slot];
+        if (this.keys[slot] != key) {
+            if (column == null) {
+                column = this.columns[slot] = new Column();
+            }
+            this.populate(column, chunkX, chunkZ);
+            this.keys[slot] = key;
+        }
+
+        int index = (x & 15) + (z & 15) * 16;
+        return y < MidnightChunkGenerator.SURFACE_CAVE_BOUNDARY ? column.cavern[index] : column.surface[index];
+    }
+
+    private void populate(Column column, int chunkX, int chunkZ) {
+        ChunkBiomeCache.Entry biomes = this.biomeCache.get(chunkX, chunkZ);
+        for (int z = 0; z < 16; z++) {
+            for (int x = 0; x < 16; x++) {
+                int index = x + z * 16;
+                column.surface[index] = this.surfaceTables.apply(biomes.getSurfaceBiome(x, z));
+                column.cavern[index] = this.cavernTables.apply(biomes.getCavernousBiome(x, z));
+            }
+        }
+    }
+
+    private static class Column {
+        final SpawnTable[] surface = new SpawnTable[256];
+        final SpawnTable[] cavern = new SpawnTable[256];
+    }
+}
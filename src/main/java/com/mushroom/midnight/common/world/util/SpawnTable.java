@@ -0,0 +1,99 @@
+package com.mushroom.midnight.common.world.util;
+
+import com.google.common.collect.ImmutableList;
+import com.mushroom.midnight.common.biome.ConfigurableBiome;
+import net.minecraft.entity.EntityClassification;
+import net.minecraft.world.biome.Biome;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Immutable spawn lists of a single biome for every classification, along with cumulative weights so that entries can
+ * be picked with a binary search. Tables are built once and can be shared freely between threads.
+ */
+public final class SpawnTable {
+    private final List<Biome.SpawnListEntry>[] entries;
+    private final int[][] cumulativeWeights;
+
+    @SuppressWarnings("unchecked")
+    private SpawnTable(Function<EntityClassification, List<Biome.SpawnListEntry>> spawns) {
+        EntityClassification[] classifications = EntityClassification.values();
+        this.entries = new List[classifications.length];
+        this.cumulativeWeights = new int[classifications.length][];
+
+        for (EntityClassification classification : classifications) {
+            List<Biome.SpawnListEntry> entries = ImmutableList.copyOf(spawns.apply(classification));
+
+            int[] cumulativeWeights = new int[entries.size()];
+            int totalWeight = 0;
+            for (int i = 0; i < entries.size(); i++) {
+                totalWeight += entries.get(i).itemWeight;
+                cumulativeWeights[i] = totalWeight;
+            }
+
+            this.entries[classification.ordinal()] = entries;
+            this.cumulativeWeights[classification.ordinal()] = cumulativeWeights;
+        }
+    }
+
+    public static SpawnTable of(ConfigurableBiome biome) {
+        return new SpawnTable(biome::getSpawnsFor);
+    }
+
+    public static SpawnTable of(Biome biome) {
+        if (biome instanceof ConfigurableBiome) {
+            return of((ConfigurableBiome) biome);
+        }
+        return new SpawnTable(biome::getSpawns);
+    }
+
+    public List<Biome.SpawnListEntry> get(EntityClassification classification) {
+        int ordinal = classification.ordinal();
+        if (ordinal >= this.entries.length) {
+            return ImmutableList.of();
+        }
+        return this.entries[ordinal];
+    }
+
+    public boolean isEmpty(EntityClassification classification) {
+        return this.getTotalWeight(classification) <= 0;
+    }
+
+    public int getTotalWeight(EntityClassification classification) {
+        int ordinal = classification.ordinal();
+        if (ordinal >= this.cumulativeWeights.length) {
+            return 0;
+        }
+
+        int[] cumulativeWeights = this.cumulativeWeights[ordinal];
+        return cumulativeWeights.length > 0 ? cumulativeWeights[cumulativeWeights.length - 1] : 0;
+    }
+
+    @Nullable
+    public Biome.SpawnListEntry pick(EntityClassification classification, Random random) {
+        int totalWeight = this.getTotalWeight(classification);
+        if (totalWeight <= 0) {
+            return null;
+        }
+
+        int[] cumulativeWeights = this.cumulativeWeights[classification.ordinal()];
+        int target = random.nextInt(totalWeight);
+
+        // find the first entry whose cumulative weight exceeds the target, which skips over zero-weight entries
+        int low = 0;
+        int high = cumulativeWeights.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulativeWeights[mid] > target) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+
+        return this.entries[classification.ordinal()].get(low);
+    }
+}
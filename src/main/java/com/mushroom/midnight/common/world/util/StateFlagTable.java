@@ -0,0 +1,73 @@
+package com.mushroom.midnight.common.world.util;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+
+import java.util.function.ToIntFunction;
+
+/**
+ * Lookup of a small set of flags per block state, indexed by state id. Forge re-bakes the state ids whenever registries
+ * are remapped, e.g. when a second world is loaded in the same session, so the table keeps the states it was built
+ * from and is rebuilt as soon as a lookup finds a different state under its id.
+ */
+public class StateFlagTable {
+    private final ToIntFunction<BlockState> flagFunction;
+    private volatile Snapshot snapshot;
+
+    public StateFlagTable(ToIntFunction<BlockState> flagFunction) {
+        this.flagFunction = flagFunction;
+    }
+
+    public int get(BlockState state) {
+        int id = Block.getStateId(state);
+        if (id < 0) {
+            return this.flagFunction.applyAsInt(state);
+        }
+
+        Snapshot snapshot = this.snapshot;
+        if (snapshot == null || !snapshot.matches(id, state)) {
+            snapshot = this.rebuild();
+            if (!snapshot.matches(id, state)) {
+                return this.flagFunction.applyAsInt(state);
+            }
+        }
+
+        return snapshot.flags[id];
+    }
+
+    public void invalidate() {
+        this.snapshot = null;
+    }
+
+    private Snapshot rebuild() {
+        int size = Block.BLOCK_STATE_IDS.size();
+        BlockState[] states = new BlockState[size];
+        byte[] flags = new byte[size];
+
+        for (BlockState state : Block.BLOCK_STATE_IDS) {
+            int id = Block.getStateId(state);
+            if (id >= 0 && id < size) {
+                states[id] = state;
+                flags[id] = (byte) this.flagFunction.applyAsInt(state);
+            }
+        }
+
+        Snapshot snapshot = new Snapshot(states, flags);
+        this.snapshot = snapshot;
+        return snapshot;
+    }
+
+    private static class Snapshot {
+        final BlockState[] states;
+        final byte[] flags;
+
+        Snapshot(BlockState[] states, byte[] flags) {
+            this.states = states;
+            this.flags = flags;
+        }
+
+        boolean matches(int id, BlockState state) {
+            return id < this.states.length && this.states[id] == state;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.mushroom.midnight.common.world.util;
+
+import javax.annotation.Nullable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache split into independently locked stripes, so that concurrent worldgen threads rarely contend. Each
+ * stripe evicts on its own, which makes the capacity approximate. Values are usually computed by the caller outside
+ * of any lock between a missed {@link #get} and the following {@link #put}, so they should be safe to compute twice.
+ */
+public class StripedLruCache<K, V> {
+    private static final int STRIPE_COUNT = 16;
+
+    private final Stripe<K, V>[] stripes;
+
+    @SuppressWarnings("unchecked")
+    public StripedLruCache(int capacity) {
+        int stripeCapacity = Math.max(capacity / STRIPE_COUNT, 1);
+        this.stripes = new Stripe[STRIPE_COUNT];
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            this.stripes[i] = new Stripe<>(stripeCapacity);
+        }
+    }
+
+    @Nullable
+    public V get(K key) {
+        Stripe<K, V> stripe = this.stripeFor(key);
+        synchronized (stripe) {
+            return stripe.get(key);
+        }
+    }
+
+    public void put(K key, V value) {
+        Stripe<K, V> stripe = this.stripeFor(key);
+        synchronized (stripe) {
+            stripe.put(key, value);
+        }
+    }
+
+    public void invalidate() {
+        for (Stripe<K, V> stripe : this.stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    private Stripe<K, V> stripeFor(K key) {
+        int hash = key.hashCode();
+        return this.stripes[(hash ^ (hash >>> 16)) & (STRIPE_COUNT - 1)];
+    }
+
+    private static class Stripe<K, V> extends LinkedHashMap<K, V> {
+        private final int capacity;
+
+        Stripe(int capacity) {
+            super(capacity, 0.75F, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return this.size() > this.capacity;
+        }
+    }
+}